@@ -0,0 +1,42 @@
+package info.kgeorgiy.ja.smirnov.i18n.benchmarks;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Statistics of boxed values, as they were kept before primitive accumulators: baseline of {@link StatisticsBenchmark}.
+ */
+final class BoxedStatistics<T, U> implements Consumer<T> {
+    private final Set<T> uniques = new HashSet<>();
+    private final BiFunction<U, T, U> summator;
+    private final Comparator<? super T> comparator;
+    private long count;
+    private U sum;
+    private T max;
+    private T min;
+
+    private BoxedStatistics(final BiFunction<U, T, U> summator, final Comparator<? super T> comparator) {
+        this.summator = summator;
+        this.comparator = comparator;
+    }
+
+    static BoxedStatistics<Double, Double> doubles() {
+        return new BoxedStatistics<>((sum, value) -> sum == null ? value : sum + value, Double::compare);
+    }
+
+    static BoxedStatistics<Integer, Long> ints() {
+        return new BoxedStatistics<>((sum, value) -> sum == null ? value.longValue() : sum + value, Integer::compare);
+    }
+
+    @Override
+    public void accept(final T t) {
+        sum = summator.apply(sum, t);
+        ++count;
+        uniques.add(t);
+        max = max == null || comparator.compare(max, t) <= 0 ? t : max;
+        min = min == null || comparator.compare(min, t) >= 0 ? t : min;
+    }
+}
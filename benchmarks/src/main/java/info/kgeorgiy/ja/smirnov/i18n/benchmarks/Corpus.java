@@ -0,0 +1,72 @@
+package info.kgeorgiy.ja.smirnov.i18n.benchmarks;
+
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic text of given language with words, numbers, amounts and dates, formatted as in its locale.
+ */
+public enum Corpus {
+    EN(Locale.of("en", "US"), List.of(
+            "the", "report", "shows", "that", "sales", "grew", "in", "every", "region", "and",
+            "customers", "paid", "for", "orders", "delivered", "on", "time", "while", "costs", "fell"
+    )),
+    RU(Locale.of("ru", "RU"), List.of(
+            "отчёт", "показывает", "что", "продажи", "выросли", "в", "каждом", "регионе", "и",
+            "клиенты", "оплатили", "заказы", "доставленные", "вовремя", "пока", "расходы", "снизились", "за", "год", "ёлка"
+    ));
+
+    private static final long SEED = 2023;
+    private static final int[] DATE_STYLES = {DateFormat.FULL, DateFormat.LONG, DateFormat.MEDIUM, DateFormat.SHORT};
+
+    private final Locale locale;
+    private final List<String> words;
+
+    Corpus(final Locale locale, final List<String> words) {
+        this.locale = locale;
+        this.words = words;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Generates the same text for the same size.
+     * @param size minimal length of text in chars.
+     */
+    public String generate(final int size) {
+        final Random random = new Random(SEED);
+        final NumberFormat number = NumberFormat.getNumberInstance(locale);
+        final NumberFormat currency = NumberFormat.getCurrencyInstance(locale);
+        final DateFormat[] dates = new DateFormat[DATE_STYLES.length];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = DateFormat.getDateInstance(DATE_STYLES[i], locale);
+        }
+        final StringBuilder text = new StringBuilder(size + 256);
+        while (text.length() < size) {
+            final int length = 4 + random.nextInt(16);
+            for (int i = 0; i < length; i++) {
+                final String word = words.get(random.nextInt(words.size()));
+                text.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                switch (random.nextInt(12)) {
+                    case 0 -> text.append(' ').append(number.format(random.nextInt(100_000) / 100.0));
+                    case 1 -> text.append(' ').append(currency.format(random.nextInt(1_000_000) / 100.0));
+                    case 2 -> text.append(' ').append(dates[random.nextInt(dates.length)]
+                            .format(new Date(random.nextLong(4_000_000_000_000L))));
+                    default -> {
+                    }
+                }
+                text.append(i + 1 < length ? " " : ". ");
+            }
+            if (random.nextInt(8) == 0) {
+                text.append(System.lineSeparator());
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package info.kgeorgiy.ja.smirnov.i18n.benchmarks;
+
+import info.kgeorgiy.ja.smirnov.i18n.ParseResult;
+import info.kgeorgiy.ja.smirnov.i18n.ParseResultHandler;
+import info.kgeorgiy.ja.smirnov.i18n.TextParser;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of report in output locale, to file and without output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+    @Param({"en", "ru"})
+    private String outputLocale;
+
+    private ParseResult result;
+    private ParseResultHandler handler;
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        result = new TextParser(Corpus.EN.generate(1 << 16), Corpus.EN.getLocale(), UniqueCounting.EXACT).parse();
+        handler = new ParseResultHandler(Locale.forLanguageTag(outputLocale));
+        output = Files.createTempFile("report", ".txt");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void save() {
+        handler.save(result, "input.txt", output.toString());
+    }
+
+    @Benchmark
+    public void render() {
+        try {
+            handler.write(result, "input.txt", OutputStream.nullOutputStream());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package info.kgeorgiy.ja.smirnov.i18n.benchmarks;
+
+import info.kgeorgiy.ja.smirnov.i18n.statistics.CollationKeyComparator;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.DateStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.DoubleStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.IntStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.StringStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.BreakIterator;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepting values by every kind of statistics. Score is values per microsecond, allocation rate shows boxing.
+ * Boxed statistics are the baseline of primitive number statistics, they always count unique values exactly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsBenchmark {
+    private static final int VALUES = 1 << 14;
+    private static final long SEED = 2023;
+
+    @Param({"EXACT", "APPROXIMATE"})
+    private UniqueCounting counting;
+
+    private String[] words;
+    private double[] doubles;
+    private long[] dates;
+    private int[] ints;
+    private Collator collator;
+
+    @Setup
+    public void setUp() {
+        final Corpus corpus = Corpus.RU;
+        final String text = corpus.generate(VALUES * 8);
+        final BreakIterator iterator = BreakIterator.getWordInstance(corpus.getLocale());
+        iterator.setText(text);
+        final List<String> found = new ArrayList<>();
+        for (int start = iterator.first(), end = iterator.next(); end != BreakIterator.DONE && found.size() < VALUES; start = end, end = iterator.next()) {
+            if (Character.isLetter(text.codePointAt(start))) {
+                found.add(text.substring(start, end));
+            }
+        }
+        words = found.toArray(String[]::new);
+        collator = Collator.getInstance(corpus.getLocale());
+
+        final Random random = new Random(SEED);
+        doubles = new double[VALUES];
+        dates = new long[VALUES];
+        ints = new int[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            doubles[i] = random.nextInt(100_000) / 100.0;
+            dates[i] = random.nextLong(4_000_000_000_000L);
+            ints[i] = random.nextInt(1000);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public StringStatistics strings() {
+        final StringStatistics statistics = new StringStatistics(new CollationKeyComparator(collator), counting);
+        for (final String word : words) {
+            statistics.accept(word);
+        }
+        return statistics;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public DoubleStatistics doubles() {
+        final DoubleStatistics statistics = new DoubleStatistics(counting);
+        for (final double value : doubles) {
+            statistics.accept(value);
+        }
+        return statistics;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public BoxedStatistics<Double, Double> boxedDoubles() {
+        final BoxedStatistics<Double, Double> statistics = BoxedStatistics.doubles();
+        for (final double value : doubles) {
+            statistics.accept(value);
+        }
+        return statistics;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public DateStatistics dates() {
+        final DateStatistics statistics = new DateStatistics(counting);
+        for (final long date : dates) {
+            statistics.acceptMillis(date);
+        }
+        return statistics;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public IntStatistics ints() {
+        final IntStatistics statistics = new IntStatistics(counting);
+        for (final int value : ints) {
+            statistics.accept(value);
+        }
+        return statistics;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public BoxedStatistics<Integer, Long> boxedInts() {
+        final BoxedStatistics<Integer, Long> statistics = BoxedStatistics.ints();
+        for (final int value : ints) {
+            statistics.accept(value);
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,40 @@
+package info.kgeorgiy.ja.smirnov.i18n.benchmarks;
+
+import info.kgeorgiy.ja.smirnov.i18n.ParseResult;
+import info.kgeorgiy.ja.smirnov.i18n.TextParser;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of whole text, from sentence and word breaking to all statistics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextParserBenchmark {
+    @Param({"EN", "RU"})
+    private Corpus corpus;
+
+    @Param({"4096", "262144"})
+    private int size;
+
+    @Param({"EXACT", "APPROXIMATE"})
+    private UniqueCounting counting;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = corpus.generate(size);
+    }
+
+    @Benchmark
+    public ParseResult parse() {
+        return new TextParser(text, corpus.getLocale(), counting).parse();
+    }
+}
@@ -0,0 +1,57 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Settings of one analysis. Everything locale dependent is taken from here instead of default locale,
+ * so analyses with different settings may run concurrently.
+ * @param inputLocale locale of input text.
+ * @param outputLocale locale of report.
+ * @param threads number of threads to parse input in.
+ * @param counting way of counting unique values.
+ * @param format format of output.
+ * @param charset charset of input, {@code null} if it is recognized in every file.
+ * @param statistics statistics to collect.
+ */
+public record AnalysisContext(
+        Locale inputLocale,
+        Locale outputLocale,
+        int threads,
+        UniqueCounting counting,
+        OutputFormat format,
+        Charset charset,
+        StatisticSelection statistics
+) {
+    public AnalysisContext {
+        Objects.requireNonNull(inputLocale, "Input locale");
+        Objects.requireNonNull(outputLocale, "Output locale");
+        Objects.requireNonNull(counting, "Unique counting");
+        Objects.requireNonNull(format, "Output format");
+        Objects.requireNonNull(statistics, "Statistics");
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads should be positive: " + threads);
+        }
+    }
+
+    public AnalysisContext(
+            final Locale inputLocale,
+            final Locale outputLocale,
+            final int threads,
+            final UniqueCounting counting,
+            final OutputFormat format
+    ) {
+        this(inputLocale, outputLocale, threads, counting, format, null, StatisticSelection.all());
+    }
+
+    public AnalysisContext(final Locale inputLocale, final Locale outputLocale, final int threads, final UniqueCounting counting) {
+        this(inputLocale, outputLocale, threads, counting, OutputFormat.TEXT);
+    }
+
+    public AnalysisContext(final Locale inputLocale, final Locale outputLocale) {
+        this(inputLocale, outputLocale, 1, UniqueCounting.EXACT);
+    }
+}
@@ -0,0 +1,166 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counters and phase durations of analysis. Counters are plain fields,
+ * so every thread keeps its own metrics and they are merged afterwards.
+ * Not thread-safe.
+ */
+public final class AnalysisMetrics {
+    // Every SAMPLE_PERIOD-th attempt of recognition is timed, as reading clock costs as much as a short attempt
+    static final int SAMPLE_PERIOD = 64;
+
+    long bytesRead;
+    long charsParsed;
+    long sentences;
+    long tokens;
+    long numberAttempts;
+    long numberMatches;
+    long currencyAttempts;
+    long currencyMatches;
+    long dateAttempts;
+    long dateMatches;
+    long numberNanos;
+    long currencyNanos;
+    long dateNanos;
+    long readNanos;
+    long parseNanos;
+    long reportNanos;
+
+    /**
+     * Adds metrics of other part of analysis.
+     */
+    public void merge(final AnalysisMetrics other) {
+        bytesRead += other.bytesRead;
+        charsParsed += other.charsParsed;
+        sentences += other.sentences;
+        tokens += other.tokens;
+        numberAttempts += other.numberAttempts;
+        numberMatches += other.numberMatches;
+        currencyAttempts += other.currencyAttempts;
+        currencyMatches += other.currencyMatches;
+        dateAttempts += other.dateAttempts;
+        dateMatches += other.dateMatches;
+        numberNanos += other.numberNanos;
+        currencyNanos += other.currencyNanos;
+        dateNanos += other.dateNanos;
+        readNanos += other.readNanos;
+        parseNanos += other.parseNanos;
+        reportNanos += other.reportNanos;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getCharsParsed() {
+        return charsParsed;
+    }
+
+    public long getSentences() {
+        return sentences;
+    }
+
+    /**
+     * Gets number of tokens of word iterator, including spaces and punctuation.
+     */
+    public long getTokens() {
+        return tokens;
+    }
+
+    public long getNumberAttempts() {
+        return numberAttempts;
+    }
+
+    public long getNumberMatches() {
+        return numberMatches;
+    }
+
+    public long getCurrencyAttempts() {
+        return currencyAttempts;
+    }
+
+    public long getCurrencyMatches() {
+        return currencyMatches;
+    }
+
+    public long getDateAttempts() {
+        return dateAttempts;
+    }
+
+    public long getDateMatches() {
+        return dateMatches;
+    }
+
+    /**
+     * Gets estimated time of recognition of numbers, including failed attempts.
+     * Only every {@value #SAMPLE_PERIOD}-th attempt is timed, so it is an estimation.
+     */
+    public long getNumberNanos() {
+        return numberNanos;
+    }
+
+    /**
+     * Gets estimated time of recognition of amounts, timed in the same way as {@link #getNumberNanos()}.
+     */
+    public long getCurrencyNanos() {
+        return currencyNanos;
+    }
+
+    /**
+     * Gets estimated time of recognition of dates, timed in the same way as {@link #getNumberNanos()}.
+     */
+    public long getDateNanos() {
+        return dateNanos;
+    }
+
+    /**
+     * Gets time of reading and decoding input, without parsing.
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * Gets time of parsing. Chunks parsed in parallel are summed, so it may exceed the wall time.
+     * Sentences and words are broken in one pass over text, so there are no separate times
+     * of sentence and word breaking: it includes both of them and recognition of tokens,
+     * estimated times of recognition of numbers, amounts and dates are parts of it.
+     */
+    public long getParseNanos() {
+        return parseNanos;
+    }
+
+    public long getReportNanos() {
+        return reportNanos;
+    }
+
+    /**
+     * Gets summary of metrics for humans, one metric per line.
+     */
+    public String summary() {
+        return String.format(Locale.ROOT,
+                "Bytes read: %d%n" +
+                "Chars parsed: %d%n" +
+                "Sentences: %d%n" +
+                "Tokens: %d%n" +
+                "Numbers matched / attempted: %d / %d, ~%d ms%n" +
+                "Amounts matched / attempted: %d / %d, ~%d ms%n" +
+                "Dates matched / attempted: %d / %d, ~%d ms%n" +
+                "Read time: %d ms%n" +
+                "Parse time: %d ms%n" +
+                "Report time: %d ms%n",
+                bytesRead, charsParsed, sentences, tokens,
+                numberMatches, numberAttempts, millis(numberNanos),
+                currencyMatches, currencyAttempts, millis(currencyNanos),
+                dateMatches, dateAttempts, millis(dateNanos),
+                millis(readNanos), millis(parseNanos), millis(reportNanos)
+        );
+    }
+
+    private static long millis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,162 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Saved state of analysis of a file, that only grows: statistics of text up to the tail,
+ * offset of the first byte, that isn't read, and the tail, that may change when text is appended.
+ * <p>
+ * Snapshot is used only if it was made with the same input locale, charset, statistics and way of counting unique values
+ * and the last bytes before the offset are still the same, otherwise file is analyzed from the start.
+ */
+final class AnalysisSnapshot {
+    private static final int MAGIC = 0x5458534E;
+    private static final int VERSION = 10;
+    // Bytes before offset, that are compared to find out, that file wasn't replaced
+    private static final int CHECKED_BYTES = 1 << 12;
+
+    private AnalysisSnapshot() {
+    }
+
+    /**
+     * Statistics of text before the tail and the tail.
+     */
+    record Saved(ChunkedTextReader.Tail tail, ParseResult result) {
+    }
+
+    /**
+     * Reads snapshot. Saved statistics are returned as they are, not merged into other ones,
+     * so statistics of the following text are merged into them in the same way as in analysis of the whole file.
+     * @param snapshotPath path to snapshot file.
+     * @param context settings of analysis.
+     * @param inputPath path to analyzed file.
+     * @return saved statistics and tail, empty ones if there is no suitable snapshot.
+     */
+    static Saved read(final Path snapshotPath, final AnalysisContext context, final Path inputPath) {
+        final Saved empty = new Saved(
+                ChunkedTextReader.Tail.EMPTY,
+                new TextParser(context.inputLocale(), context.counting(), context.statistics()).getResult()
+        );
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !in.readUTF().equals(context.inputLocale().toLanguageTag())
+                    || !in.readUTF().equals(context.counting().name())
+                    || !in.readUTF().equals(Objects.toString(context.charset(), "auto"))
+                    || !in.readUTF().equals(context.statistics().key())) {
+                return empty;
+            }
+            final long offset = in.readLong();
+            final long checksum = in.readLong();
+            if (offset > Files.size(inputPath) || checksum(inputPath, offset) != checksum) {
+                return empty;
+            }
+            final String tail = readString(in);
+            // Snapshot may be broken, so statistics are used only when it is read completely
+            final ParseResult saved = new TextParser(context.inputLocale(), context.counting(), context.statistics()).getResult();
+            saved.readState(in);
+            return new Saved(new ChunkedTextReader.Tail(offset, tail), saved);
+        } catch (final NoSuchFileException e) {
+            return empty;
+        } catch (final IOException | IllegalArgumentException e) {
+            System.out.println("Can't read snapshot " + snapshotPath + ", file is analyzed from the start: " + e.getMessage());
+            return empty;
+        }
+    }
+
+    /**
+     * Writes snapshot. Snapshot is replaced atomically, so it isn't broken by failed write.
+     * @param snapshotPath path to snapshot file.
+     * @param context settings of analysis.
+     * @param inputPath path to analyzed file.
+     * @param tail tail of read text.
+     * @param result statistics of text before the tail.
+     */
+    static void write(
+            final Path snapshotPath,
+            final AnalysisContext context,
+            final Path inputPath,
+            final ChunkedTextReader.Tail tail,
+            final ParseResult result
+    ) {
+        final Path absolute = snapshotPath.toAbsolutePath();
+        try {
+            final Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            try {
+                try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeUTF(context.inputLocale().toLanguageTag());
+                    out.writeUTF(context.counting().name());
+                    out.writeUTF(Objects.toString(context.charset(), "auto"));
+                    out.writeUTF(context.statistics().key());
+                    out.writeLong(tail.offset());
+                    out.writeLong(checksum(inputPath, tail.offset()));
+                    writeString(out, tail.text());
+                    result.writeState(out);
+                }
+                move(temporary, absolute);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void move(final Path source, final Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static long checksum(final Path path, final long offset) throws IOException {
+        final int length = (int) Math.min(offset, CHECKED_BYTES);
+        final ByteBuffer bytes = ByteBuffer.allocate(length);
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.position(offset - length);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes) == -1) {
+                    throw new EOFException("File is shorter than offset " + offset + ": " + path);
+                }
+            }
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(bytes.flip());
+        return crc.getValue();
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        out.writeInt(string.length());
+        out.writeChars(string);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative string length: " + length);
+        }
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,183 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IllformedLocaleException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Gets statistics of many files in one run. Every file is analyzed in its own virtual thread,
+ * its report is written to output directory, and summary of all files is written next to them.
+ */
+public class BatchTextStatistics {
+    public static final String SUMMARY_FILE_NAME = "summary";
+    public static final String REPORTS_DIRECTORY_NAME = "files";
+    private static final String GLOB_CHARS = "*?[{";
+
+    public static void main(String[] args) {
+        if (args == null) {
+            System.out.println("Args is null");
+            return;
+        } else if (args.length < 4 || args.length > 7) {
+            System.out.println("Wrong number of arguments (" + args.length + "), " +
+                    " expected: [input locale, output locale, input directory or glob, output directory," +
+                    " [files in parallel, [text|json|binary, [cache directory]]]]");
+            return;
+        }
+        try {
+            final Locale inputLocale = TextStatistics.parseLocale(args[0]);
+            final Locale outputLocale = TextStatistics.parseLocale(args[1]);
+            final int files = args.length >= 5 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+            final OutputFormat format = args.length >= 6 ? TextStatistics.parseFormat(args[5]) : OutputFormat.TEXT;
+            try {
+                final AnalysisContext context = new AnalysisContext(inputLocale, outputLocale, 1, TextStatistics.parseCounting(), format, TextStatistics.parseCharset(), TextStatistics.parseStatistics());
+                final ResultCache cache = args.length == 7 ? new ResultCache(Path.of(args[6])) : null;
+                getStatistics(context, args[2], Path.of(args[3]), files, cache);
+            } catch (final RuntimeException e) {
+                System.out.println(e.getMessage());
+                e.printStackTrace();
+            }
+        } catch (final IllformedLocaleException | IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets statistics of every matching file and their summary.
+     * Report of file {@code input/a/b} is written to {@code output/files/a/b.txt},
+     * summary is written to {@code output/summary.txt}, extension depends on output format.
+     * Summary merges statistics of files in the order of their paths.
+     * @param context settings of analysis of every file.
+     * @param input directory, which regular files are analyzed, or glob pattern of files.
+     * @param outputDirectory directory for reports.
+     * @param maxFiles maximal number of files, that are parsed or wait for merge at once.
+     */
+    public static void getStatistics(
+            final AnalysisContext context,
+            final String input,
+            final Path outputDirectory,
+            final int maxFiles
+    ) {
+        getStatistics(context, input, outputDirectory, maxFiles, null);
+    }
+
+    /**
+     * Gets statistics of every matching file and their summary, taking statistics of files from cache,
+     * if the same files were analyzed before.
+     * @param context settings of analysis of every file.
+     * @param input directory, which regular files are analyzed, or glob pattern of files.
+     * @param outputDirectory directory for reports.
+     * @param maxFiles maximal number of files, that are parsed or wait for merge at once.
+     * @param cache cache of statistics, {@code null} if statistics aren't cached.
+     */
+    public static void getStatistics(
+            final AnalysisContext context,
+            final String input,
+            final Path outputDirectory,
+            final int maxFiles,
+            final ResultCache cache
+    ) {
+        if (maxFiles <= 0) {
+            throw new IllegalArgumentException("Number of files in parallel should be positive: " + maxFiles);
+        }
+        final Path base = baseDirectory(input);
+        final List<Path> files = findFiles(base, input);
+        final ParseResult summary = new TextParser(context.inputLocale(), context.counting(), context.statistics()).getResult();
+        final Deque<Future<ParseResult>> pending = new ArrayDeque<>();
+        try (final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final Path file : files) {
+                if (pending.size() == maxFiles) {
+                    mergeFirst(summary, pending);
+                }
+                final Path report = outputDirectory.resolve(REPORTS_DIRECTORY_NAME)
+                        .resolve(base.relativize(file).toString() + context.format().getExtension());
+                pending.add(executor.submit(() -> analyze(context, file, report, cache)));
+            }
+            while (!pending.isEmpty()) {
+                mergeFirst(summary, pending);
+            }
+        }
+        TextStatistics.save(context, summary, input, outputDirectory.resolve(SUMMARY_FILE_NAME + context.format().getExtension()));
+    }
+
+    // Returns null, if file can't be analyzed
+    private static ParseResult analyze(
+            final AnalysisContext context,
+            final Path file,
+            final Path report,
+            final ResultCache cache
+    ) {
+        try {
+            final ParseResult result = TextStatistics.parse(context, file.toString(), cache);
+            Files.createDirectories(report.getParent());
+            TextStatistics.save(context, result, file.toString(), report);
+            return result;
+        } catch (final IOException | UncheckedIOException e) {
+            System.out.println("Can't analyze file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void mergeFirst(final ParseResult summary, final Deque<Future<ParseResult>> pending) {
+        final ParseResult result;
+        try {
+            result = pending.remove().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for files", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Can't analyze file", e.getCause());
+        }
+        if (result != null) {
+            summary.merge(result);
+        }
+    }
+
+    // Directory itself or the longest directory of glob without special characters
+    private static Path baseDirectory(final String input) {
+        final Path path = Path.of(input);
+        if (Files.isDirectory(path)) {
+            return path;
+        }
+        Path base = path.isAbsolute() ? path.getRoot() : Path.of("");
+        final Path parent = path.getParent();
+        if (parent != null) {
+            for (final Path name : parent) {
+                if (name.toString().chars().anyMatch(c -> GLOB_CHARS.indexOf(c) >= 0)) {
+                    break;
+                }
+                base = base.resolve(name);
+            }
+        }
+        return base;
+    }
+
+    private static List<Path> findFiles(final Path base, final String input) {
+        final Path path = Path.of(input);
+        final PathMatcher matcher = Files.isDirectory(path)
+                ? file -> true
+                : FileSystems.getDefault().getPathMatcher("glob:" + input);
+        try (final Stream<Path> paths = Files.walk(base)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .toList();
+        } catch (final IOException e) {
+            System.out.println("Can't list input files, " + input);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
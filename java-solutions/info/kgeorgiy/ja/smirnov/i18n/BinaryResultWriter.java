@@ -0,0 +1,190 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import info.kgeorgiy.ja.smirnov.i18n.statistics.DateStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.DoubleStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.Frequency;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.StringStatistics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.function.DoubleFunction;
+
+/**
+ * Writes statistics in compact binary encoding, that doesn't depend on locale.
+ * <p>
+ * Encoding is: magic {@code "TXST"}, version byte, file name, statistics of sentences and words
+ * (string statistics), of numbers and amounts (double statistics) and of dates (date statistics).
+ * Statistics, that aren't chosen, are written empty, and custom statistics aren't written.
+ * <ul>
+ *     <li>count and length is unsigned LEB128 varint;</li>
+ *     <li>string is length in bytes and UTF-8 bytes;</li>
+ *     <li>optional value is byte 0, if absent, or byte 1 and the value;</li>
+ *     <li>double is 8 bytes of IEEE 754 big-endian, date is 8 bytes of milliseconds since the epoch;</li>
+ *     <li>string statistics: count, unique count, optional min and max strings,
+ *     optional (min length, min length string), optional (max length, max length string),
+ *     optional average length double, quantiles of length, most frequent strings;</li>
+ *     <li>quantiles: optional median, 90th and 99th percentile doubles;</li>
+ *     <li>most frequent strings: number of them and, for every string, string, count and maximal overestimation
+ *     of count; only strings, that surely occurred more than once, are written;</li>
+ *     <li>double statistics: count, unique count, optional min, max, sum and average doubles, quantiles;</li>
+ *     <li>date statistics: count, unique count, optional min and max dates,
+ *     optional sum as length and big-endian two's complement bytes, optional average date.</li>
+ * </ul>
+ * Not thread-safe.
+ */
+public class BinaryResultWriter implements ResultWriter {
+    public static final int MAGIC = 0x54585354;
+    public static final int VERSION = 2;
+
+    private DataOutputStream out;
+
+    @Override
+    public void write(final ParseResult result, final String inputFileName, final OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        try {
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+            string(inputFileName);
+            strings(result.sentenceStatistics());
+            strings(result.wordStatistics());
+            doubles(result.numberStatistics());
+            doubles(result.currencyStatistics());
+            dates(result.dateStatics());
+            this.out.flush();
+        } finally {
+            this.out = null;
+        }
+    }
+
+    private void strings(final StringStatistics statistics) throws IOException {
+        varint(statistics.getCount());
+        varint(statistics.getUniqueCount());
+        optionalString(statistics.getMin());
+        optionalString(statistics.getMax());
+        if (present(statistics.getMinLengthString())) {
+            varint(statistics.getMinLength());
+            string(statistics.getMinLengthString());
+        }
+        if (present(statistics.getMaxLengthString())) {
+            varint(statistics.getMaxLength());
+            string(statistics.getMaxLengthString());
+        }
+        optionalDouble(statistics.getAverageLength());
+        quantiles(statistics::getLengthQuantile);
+        final List<Frequency<String>> repeated = statistics.getMostFrequent().stream()
+                .filter(Frequency::isRepeated)
+                .toList();
+        varint(repeated.size());
+        for (final Frequency<String> frequency : repeated) {
+            string(frequency.value());
+            varint(frequency.count());
+            varint(frequency.error());
+        }
+    }
+
+    private void doubles(final DoubleStatistics statistics) throws IOException {
+        varint(statistics.getCount());
+        varint(statistics.getUniqueCount());
+        optionalDouble(statistics.getMin());
+        optionalDouble(statistics.getMax());
+        optionalDouble(statistics.getSum());
+        optionalDouble(statistics.getAverage());
+        quantiles(statistics::getQuantile);
+    }
+
+    private void quantiles(final DoubleFunction<Double> quantile) throws IOException {
+        optionalDouble(quantile.apply(0.5));
+        optionalDouble(quantile.apply(0.9));
+        optionalDouble(quantile.apply(0.99));
+    }
+
+    private void dates(final DateStatistics statistics) throws IOException {
+        varint(statistics.getCount());
+        varint(statistics.getUniqueCount());
+        if (present(statistics.getMin())) {
+            out.writeLong(statistics.getMin().getTime());
+        }
+        if (present(statistics.getMax())) {
+            out.writeLong(statistics.getMax().getTime());
+        }
+        final BigInteger sum = statistics.getSum();
+        if (present(sum)) {
+            final byte[] bytes = sum.toByteArray();
+            varint(bytes.length);
+            out.write(bytes);
+        }
+        if (present(statistics.getAverage())) {
+            out.writeLong(statistics.getAverage().getTime());
+        }
+    }
+
+    private boolean present(final Object value) throws IOException {
+        out.writeByte(value == null ? 0 : 1);
+        return value != null;
+    }
+
+    private void optionalString(final String value) throws IOException {
+        if (present(value)) {
+            string(value);
+        }
+    }
+
+    private void optionalDouble(final Double value) throws IOException {
+        if (present(value)) {
+            out.writeDouble(value);
+        }
+    }
+
+    private void varint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    // Encoded char by char, so no byte array is made
+    private void string(final String string) throws IOException {
+        long length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        varint(length);
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                out.writeByte(c);
+            } else if (c < 0x800) {
+                out.writeByte(0xC0 | c >> 6);
+                out.writeByte(0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                out.writeByte(0xF0 | codePoint >> 18);
+                out.writeByte(0x80 | codePoint >> 12 & 0x3F);
+                out.writeByte(0x80 | codePoint >> 6 & 0x3F);
+                out.writeByte(0x80 | codePoint & 0x3F);
+            } else {
+                // Unpaired surrogate is encoded as is, like in WTF-8
+                out.writeByte(0xE0 | c >> 12);
+                out.writeByte(0x80 | c >> 6 & 0x3F);
+                out.writeByte(0x80 | c & 0x3F);
+            }
+        }
+    }
+}
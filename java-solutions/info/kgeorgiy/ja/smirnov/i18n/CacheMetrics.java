@@ -0,0 +1,10 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+/**
+ * Counters of cache usage.
+ * @param hits number of lookups, that found cached value.
+ * @param misses number of lookups, that created value.
+ * @param evictions number of values, that were removed to free place.
+ */
+public record CacheMetrics(long hits, long misses, long evictions) {
+}
@@ -0,0 +1,303 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.BreakIterator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Reads file in bounded chunks and passes it to consumer by pieces of whole sentences,
+ * so memory usage doesn't depend on file size.
+ * Piece ends at the first sentence boundary after {@code chunkSize} chars of it, so pieces depend only on text,
+ * not on how it was read: text read at once and text read by appended parts are split in the same pieces.
+ * Gzip files are decompressed on the fly, and charset is recognized by {@link InputEncoding}, unless it is given.
+ */
+public class ChunkedTextReader {
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+    // Sentence longer than this is split anyway, otherwise whole file may be kept in memory
+    private static final int MAX_CHUNKS_PENDING = 16;
+    private static final int MAX_LOOKAHEAD = 1 << 10;
+
+    private final int chunkSize;
+    private final Locale locale;
+    private final Charset charset;
+    private final BreakIterator sentenceIterator;
+    // Created on the first forced split, as sentences are rarely that long
+    private BreakIterator wordIterator;
+    private final StringBuilder pending = new StringBuilder();
+    private final AnalysisMetrics metrics = new AnalysisMetrics();
+    // Decoder of the file being read, null until its charset is recognized
+    private CharsetDecoder decoder;
+
+    public ChunkedTextReader() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedTextReader(final int chunkSize) {
+        this(Locale.getDefault(), chunkSize);
+    }
+
+    public ChunkedTextReader(final Locale locale) {
+        this(locale, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates reader.
+     * @param locale locale of text, sentences are split by its rules.
+     * @param chunkSize approximate size of pieces in chars.
+     */
+    public ChunkedTextReader(final Locale locale, final int chunkSize) {
+        this(locale, chunkSize, null);
+    }
+
+    /**
+     * Creates reader.
+     * @param locale locale of text, sentences are split by its rules.
+     * @param chunkSize approximate size of pieces in chars.
+     * @param charset charset of files, {@code null} to recognize it in every file.
+     */
+    public ChunkedTextReader(final Locale locale, final int chunkSize, final Charset charset) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.locale = locale;
+        this.charset = charset;
+        this.sentenceIterator = LocaleResources.sentenceIterator(locale);
+    }
+
+    /**
+     * Reads file, that may be compressed with gzip, and passes it to consumer.
+     * @param path path to input file.
+     * @param consumer consumer of text pieces, that start and end on sentence boundaries.
+     * @throws IOException if file can't be read or isn't valid text in its charset.
+     */
+    public void read(final Path path, final Consumer<String> consumer) throws IOException {
+        pending.setLength(0);
+        read(path, 0, consumer, true);
+        emitChunks(consumer, true);
+    }
+
+    /**
+     * Reads text appended to uncompressed file since previous read.
+     * Only pieces, that can't change when more text is appended, are passed to consumer,
+     * the rest of text is returned, as well as incomplete character at the end of file.
+     * @param path path to input file.
+     * @param previous rest of previously read text, {@link Tail#EMPTY} to read file from the start.
+     * @param consumer consumer of text pieces, that start and end on sentence boundaries.
+     * @return rest of text, that isn't passed to consumer.
+     * @throws IOException if file can't be read, is compressed or isn't valid text in its charset.
+     */
+    public Tail readAppended(final Path path, final Tail previous, final Consumer<String> consumer) throws IOException {
+        pending.setLength(0);
+        pending.append(previous.text());
+        final long offset = read(path, previous.offset(), consumer, false);
+        emitChunks(consumer, false);
+        return new Tail(offset, pending.toString());
+    }
+
+    /**
+     * Passes rest of text to consumer, as if file ended with it.
+     * Pieces of text, read by {@link #readAppended} and then by this method,
+     * are the same as pieces of the whole text read by {@link #read}.
+     * @param tail rest of text, returned by {@link #readAppended}.
+     * @param consumer consumer of text pieces.
+     */
+    public void readTail(final Tail tail, final Consumer<String> consumer) {
+        pending.setLength(0);
+        pending.append(tail.text());
+        emitChunks(consumer, true);
+    }
+
+    /**
+     * Gets number of read bytes and time of reading and decoding of all read files.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Returns offset of the first byte, that isn't decoded
+    private long read(
+            final Path path,
+            final long offset,
+            final Consumer<String> consumer,
+            final boolean endOfInput
+    ) throws IOException {
+        // Bytes are buffered until charset can be recognized
+        final ByteBuffer bytes = ByteBuffer.allocate(Math.max(chunkSize, InputEncoding.HEAD_SIZE));
+        final CharBuffer chars = CharBuffer.allocate(chunkSize);
+        try (final FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            final boolean compressed = InputEncoding.isCompressed(file);
+            if (compressed && !endOfInput) {
+                throw new IOException("Compressed file can't be read incrementally: " + path);
+            }
+            decoder = null;
+            if (offset > 0) {
+                final ByteBuffer head = ByteBuffer.allocate(InputEncoding.HEAD_SIZE);
+                file.read(head, 0);
+                detect(head.flip());
+            }
+            file.position(offset);
+            try (final ReadableByteChannel channel = compressed ? InputEncoding.decompress(file, bytes.capacity()) : file) {
+                while (readChunk(channel, bytes, chars)) {
+                    if (pending.length() >= chunkSize + lookahead()) {
+                        emitChunks(consumer, false);
+                    }
+                }
+                bytes.flip();
+                if (decoder == null) {
+                    detect(bytes);
+                }
+                decode(bytes, chars, endOfInput);
+                if (endOfInput) {
+                    CoderResult result;
+                    do {
+                        result = decoder.flush(chars);
+                        drain(chars);
+                    } while (result.isOverflow());
+                }
+                return file.position() - bytes.remaining();
+            }
+        }
+    }
+
+    // Chooses decoder and skips byte order mark
+    private void detect(final ByteBuffer head) {
+        final InputEncoding.Detected detected = InputEncoding.detect(head, charset, locale);
+        head.position(head.position() + detected.bom());
+        decoder = detected.charset().newDecoder();
+    }
+
+    // Returns false at the end of file
+    private boolean readChunk(
+            final ReadableByteChannel channel,
+            final ByteBuffer bytes,
+            final CharBuffer chars
+    ) throws IOException {
+        final FlightEvents.ReadChunk event = new FlightEvents.ReadChunk();
+        event.begin();
+        final long start = System.nanoTime();
+        final int read = channel.read(bytes);
+        if (read == -1) {
+            return false;
+        }
+        if (decoder != null || bytes.position() >= InputEncoding.HEAD_SIZE) {
+            bytes.flip();
+            if (decoder == null) {
+                detect(bytes);
+            }
+            decode(bytes, chars, false);
+            bytes.compact();
+        }
+        metrics.bytesRead += read;
+        metrics.readNanos += System.nanoTime() - start;
+        if (event.shouldCommit()) {
+            event.bytes = read;
+            event.commit();
+        }
+        return true;
+    }
+
+    private void decode(
+            final ByteBuffer bytes,
+            final CharBuffer chars,
+            final boolean endOfInput
+    ) throws IOException {
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            drain(chars);
+        } while (result.isOverflow());
+    }
+
+    private void drain(final CharBuffer chars) {
+        chars.flip();
+        pending.append(chars);
+        chars.clear();
+    }
+
+    // Text after the end of chunk, that is enough to be sure, that boundary doesn't move
+    private int lookahead() {
+        return Math.min(chunkSize / 2, MAX_LOOKAHEAD);
+    }
+
+    private void emitChunks(final Consumer<String> consumer, final boolean endOfInput) {
+        for (int end = chunkEnd(endOfInput); end > 0; end = chunkEnd(endOfInput)) {
+            emit(end, consumer);
+        }
+        if (endOfInput) {
+            emit(pending.length(), consumer);
+        }
+    }
+
+    // Returns end of the first chunk of pending text, 0 if it isn't known yet
+    private int chunkEnd(final boolean endOfInput) {
+        if (pending.length() <= chunkSize) {
+            return 0;
+        }
+        final String text = pending.toString();
+        // Boundary may move when the rest of text is read, so it is looked for
+        // in forward iteration, the same way as TextParser does, and far enough from the end of read text
+        final int limit = endOfInput ? text.length() - 1 : text.length() - lookahead();
+        // Chunk without boundaries is split at the fixed length, whatever text follows
+        final int forced = chunkSize * MAX_CHUNKS_PENDING;
+        sentenceIterator.setText(text);
+        for (int end = sentenceIterator.next(); end != BreakIterator.DONE && end <= Math.min(limit, forced); end = sentenceIterator.next()) {
+            if (end >= chunkSize) {
+                return end;
+            }
+        }
+        return limit >= forced ? forcedEnd(text, forced) : 0;
+    }
+
+    // Backs off to the last word boundary, so forced split doesn't break a word or a surrogate pair.
+    // Only text before the forced end is looked at, so the end doesn't depend on how much text follows
+    private int forcedEnd(final String text, final int forced) {
+        if (wordIterator == null) {
+            wordIterator = BreakIterator.getWordInstance(locale);
+        }
+        wordIterator.setText(text.substring(0, forced));
+        final int end = wordIterator.preceding(forced);
+        if (end > 0) {
+            return end;
+        }
+        return Character.isSurrogatePair(text.charAt(forced - 1), text.charAt(forced)) ? forced - 1 : forced;
+    }
+
+    private void emit(final int end, final Consumer<String> consumer) {
+        if (end == 0) {
+            return;
+        }
+        consumer.accept(pending.substring(0, end));
+        pending.delete(0, end);
+    }
+
+    /**
+     * Rest of read text.
+     * @param offset offset of the first byte of file, that isn't read.
+     * @param text read text, that isn't passed to consumer.
+     */
+    public record Tail(long offset, String text) {
+        public static final Tail EMPTY = new Tail(0, "");
+
+        public Tail {
+            Objects.requireNonNull(text, "Text");
+            if (offset < 0) {
+                throw new IllegalArgumentException("Offset should be non-negative: " + offset);
+            }
+        }
+    }
+}
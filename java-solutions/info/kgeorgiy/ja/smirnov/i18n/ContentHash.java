@@ -0,0 +1,96 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HexFormat;
+
+/**
+ * Streaming MurmurHash3 x64 128 of bytes, the same hash, that fingerprints strings in statistics.
+ * It is several times faster than cryptographic hashes and accidental collisions are practically impossible,
+ * though they may be made on purpose. Hash doesn't depend on how bytes are split into updates.
+ * Not thread-safe.
+ */
+final class ContentHash {
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private static final int BLOCK_SIZE = 16;
+
+    private final ByteBuffer tail = ByteBuffer.allocate(BLOCK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long h1;
+    private long h2;
+    private long length;
+
+    /**
+     * Adds remaining bytes of buffer to hash, buffer is read to its limit.
+     */
+    void update(final ByteBuffer bytes) {
+        length += bytes.remaining();
+        if (tail.position() > 0) {
+            while (tail.hasRemaining() && bytes.hasRemaining()) {
+                tail.put(bytes.get());
+            }
+            if (tail.hasRemaining()) {
+                return;
+            }
+            block(tail.getLong(0), tail.getLong(Long.BYTES));
+            tail.clear();
+        }
+        final ByteOrder order = bytes.order();
+        bytes.order(ByteOrder.LITTLE_ENDIAN);
+        while (bytes.remaining() >= BLOCK_SIZE) {
+            block(bytes.getLong(), bytes.getLong());
+        }
+        bytes.order(order);
+        tail.put(bytes);
+    }
+
+    void update(final byte[] bytes) {
+        update(ByteBuffer.wrap(bytes));
+    }
+
+    private void block(final long k1, final long k2) {
+        h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+        h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+        h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+        h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+    }
+
+    /**
+     * Gets hash of all added bytes as 32 hexadecimal digits. Hash can't be updated afterwards.
+     */
+    String finish() {
+        final int rest = tail.position();
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = rest - 1; i >= Long.BYTES; i--) {
+            k2 = k2 << Byte.SIZE | tail.get(i) & 0xFF;
+        }
+        for (int i = Math.min(rest, Long.BYTES) - 1; i >= 0; i--) {
+            k1 = k1 << Byte.SIZE | tail.get(i) & 0xFF;
+        }
+        if (rest > Long.BYTES) {
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+        }
+        if (rest > 0) {
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = mix(h1);
+        h2 = mix(h2);
+        h1 += h2;
+        h2 += h1;
+        return HexFormat.of().toHexDigits(h1) + HexFormat.of().toHexDigits(h2);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
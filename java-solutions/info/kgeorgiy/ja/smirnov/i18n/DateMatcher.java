@@ -0,0 +1,453 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.text.DateFormat;
+import java.text.DateFormatSymbols;
+import java.text.Format;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.chrono.IsoChronology;
+import java.time.chrono.IsoEra;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.FormatStyle;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Recognizes dates of all {@link FormatStyle styles} of a locale.
+ * Localized patterns of {@code java.time} and {@code java.text} are compiled once into sequences
+ * of literals, numbers and names,
+ * names of months, days of week and eras are looked up in a trie.
+ * Patterns with other fields are parsed by {@link DateTimeFormatter}.
+ * By default dates start in {@link #ZONE}, so they don't depend on default time zone of JVM.
+ * Not thread-safe.
+ */
+class DateMatcher {
+    /**
+     * Zone, in which dates of texts start, reports show dates in it too.
+     */
+    static final ZoneId ZONE = ZoneOffset.UTC;
+    private static final FormatStyle[] STYLES = {FormatStyle.FULL, FormatStyle.LONG, FormatStyle.MEDIUM, FormatStyle.SHORT};
+    private static final int[] LEGACY_STYLES = {DateFormat.FULL, DateFormat.LONG, DateFormat.MEDIUM, DateFormat.SHORT};
+    private static final TextStyle[] NAME_STYLES = {
+            TextStyle.FULL, TextStyle.FULL_STANDALONE, TextStyle.SHORT, TextStyle.SHORT_STANDALONE
+    };
+    private static final int MAX_DIGITS = 9;
+    // Two-digit years are in 2000..2099, as in java.time
+    private static final int REDUCED_YEAR_BASE = 2000;
+    // Start of every day of these years is in epoch milliseconds in any zone
+    private static final int MIN_YEAR = -292_275_054;
+    private static final int MAX_YEAR = 292_278_993;
+
+    private final List<Element[]> patterns;
+    private final List<Format> fallbacks;
+    private final ZoneId zone;
+    private final Fields fields = new Fields();
+    private final ParsePosition fallbackPosition = new ParsePosition(0);
+
+    DateMatcher(final Locale locale) {
+        this(locale, ZONE);
+    }
+
+    /**
+     * Creates matcher of dates.
+     * @param locale locale of dates.
+     * @param zone zone, in which dates start.
+     */
+    DateMatcher(final Locale locale, final ZoneId zone) {
+        this.zone = zone;
+        this.patterns = new ArrayList<>();
+        this.fallbacks = new ArrayList<>();
+        final Map<Character, Trie> names = new HashMap<>();
+        for (int i = 0; i < STYLES.length; i++) {
+            final FormatStyle style = STYLES[i];
+            final String pattern = DateTimeFormatterBuilder.getLocalizedDateTimePattern(
+                    style, null, IsoChronology.INSTANCE, locale
+            );
+            final Element[] elements = compile(pattern, locale, names);
+            if (elements != null) {
+                add(elements);
+            } else {
+                fallbacks.add(DateTimeFormatter.ofLocalizedDate(style).withLocale(locale).toFormat(LocalDate::from));
+            }
+            // Legacy patterns of some locales differ from java.time ones, but they are still used in texts
+            if (DateFormat.getDateInstance(LEGACY_STYLES[i], locale) instanceof SimpleDateFormat legacy
+                    && legacy.getCalendar().getClass() == GregorianCalendar.class) {
+                final Element[] legacyElements = compile(legacy.toPattern(), locale, names);
+                if (legacyElements != null) {
+                    add(legacyElements);
+                }
+            }
+        }
+    }
+
+    private DateMatcher(final DateMatcher other) {
+        // Compiled patterns and java.time formats are immutable
+        this.zone = other.zone;
+        this.patterns = other.patterns;
+        this.fallbacks = other.fallbacks;
+    }
+
+    /**
+     * Creates matcher of the same dates, that may be used independently of this one.
+     */
+    DateMatcher copy() {
+        return new DateMatcher(this);
+    }
+
+    private void add(final Element[] pattern) {
+        if (patterns.stream().noneMatch(other -> Arrays.equals(other, pattern))) {
+            patterns.add(pattern);
+        }
+    }
+
+    /**
+     * Finds the longest date, starting at the given position.
+     * @return date in epoch milliseconds. If there is no date, position isn't changed and result is undefined.
+     */
+    long match(final String text, final ParsePosition position) {
+        final int start = position.getIndex();
+        if (start >= text.length()) {
+            return 0;
+        }
+        final char first = text.charAt(start);
+        int end = start;
+        long date = 0;
+        for (final Element[] pattern : patterns) {
+            if (!pattern[0].mayStart(first)) {
+                continue;
+            }
+            final int patternEnd = match(pattern, text, start);
+            // Of equally long dates, the shorter style wins: it knows about two-digit years
+            if (patternEnd > start && patternEnd >= end) {
+                end = patternEnd;
+                date = LocalDate.of(fields.year, fields.month, fields.day).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+        }
+        for (final Format fallback : fallbacks) {
+            fallbackPosition.setIndex(start);
+            final Object parsed = fallback.parseObject(text, fallbackPosition);
+            if (parsed != null && fallbackPosition.getIndex() > end && fits(((LocalDate) parsed).getYear())) {
+                end = fallbackPosition.getIndex();
+                date = ((LocalDate) parsed).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+        }
+        position.setIndex(end);
+        return date;
+    }
+
+    // Returns end of the date or -1, if pattern doesn't match valid date
+    private int match(final Element[] pattern, final String text, int position) {
+        fields.clear();
+        for (final Element element : pattern) {
+            position = element.match(text, position, fields);
+            if (position < 0) {
+                return -1;
+            }
+        }
+        if (fields.year == Fields.UNSET) {
+            return -1;
+        }
+        if (fields.era == IsoEra.BCE.getValue()) {
+            fields.year = 1 - fields.year;
+        }
+        final boolean valid = fits(fields.year) && fields.month >= 1 && fields.month <= 12
+                && fields.day >= 1 && fields.day <= Month.of(fields.month).length(Year.isLeap(fields.year));
+        return valid ? position : -1;
+    }
+
+    private static boolean fits(final int year) {
+        return MIN_YEAR <= year && year <= MAX_YEAR;
+    }
+
+    // Returns null, if pattern has fields, that aren't supported
+    private static Element[] compile(final String pattern, final Locale locale, final Map<Character, Trie> names) {
+        final List<Element> elements = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); ) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                final int end = pattern.indexOf('\'', i + 1);
+                if (end == -1) {
+                    return null;
+                }
+                // Two quotes are a quote itself
+                literal.append(end == i + 1 ? "'" : pattern.substring(i + 1, end));
+                i = end + 1;
+            } else if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') {
+                int count = 1;
+                while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                    count++;
+                }
+                if (!literal.isEmpty()) {
+                    elements.add(new Literal(literal.toString()));
+                    literal.setLength(0);
+                }
+                final Element field = field(c, count, locale, names);
+                if (field == null) {
+                    return null;
+                }
+                elements.add(field);
+                i += count;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (!literal.isEmpty()) {
+            elements.add(new Literal(literal.toString()));
+        }
+        if (elements.isEmpty()) {
+            return null;
+        }
+        // Adjacent numbers are split by their widths
+        for (int i = 0; i + 1 < elements.size(); i++) {
+            if (elements.get(i) instanceof NumberField number && elements.get(i + 1) instanceof NumberField) {
+                elements.set(i, new NumberField(number.field(), number.count(), number.count()));
+            }
+        }
+        return elements.toArray(Element[]::new);
+    }
+
+    private static Element field(final char letter, final int count, final Locale locale, final Map<Character, Trie> names) {
+        return switch (letter) {
+            case 'y', 'u' -> new NumberField('y', count, MAX_DIGITS);
+            case 'd' -> count <= 2 ? new NumberField('d', count, MAX_DIGITS) : null;
+            case 'M', 'L' -> count <= 2
+                    ? new NumberField('M', count, MAX_DIGITS)
+                    : count <= 4 ? new NameField('M', names.computeIfAbsent('M', k -> monthNames(locale))) : null;
+            case 'E', 'c', 'e' -> count >= 3 && count <= 4
+                    ? new NameField('E', names.computeIfAbsent('E', k -> dayNames(locale)))
+                    : null;
+            case 'G' -> count <= 4 ? new NameField('G', names.computeIfAbsent('G', k -> eraNames(locale))) : null;
+            default -> null;
+        };
+    }
+
+    private static Trie monthNames(final Locale locale) {
+        final Trie trie = new Trie();
+        for (final Month month : Month.values()) {
+            for (final TextStyle style : NAME_STYLES) {
+                trie.put(month.getDisplayName(style, locale), month.getValue());
+            }
+        }
+        final DateFormatSymbols symbols = DateFormatSymbols.getInstance(locale);
+        putAll(trie, symbols.getMonths(), 1);
+        putAll(trie, symbols.getShortMonths(), 1);
+        return trie;
+    }
+
+    private static Trie dayNames(final Locale locale) {
+        final Trie trie = new Trie();
+        for (final DayOfWeek day : DayOfWeek.values()) {
+            for (final TextStyle style : NAME_STYLES) {
+                trie.put(day.getDisplayName(style, locale), day.getValue());
+            }
+        }
+        final DateFormatSymbols symbols = DateFormatSymbols.getInstance(locale);
+        putAll(trie, symbols.getWeekdays(), 0);
+        putAll(trie, symbols.getShortWeekdays(), 0);
+        return trie;
+    }
+
+    private static Trie eraNames(final Locale locale) {
+        final Trie trie = new Trie();
+        for (final IsoEra era : IsoEra.values()) {
+            for (final TextStyle style : NAME_STYLES) {
+                trie.put(era.getDisplayName(style, locale), era.getValue());
+            }
+        }
+        // Indices of legacy eras are the same as of ISO ones
+        putAll(trie, DateFormatSymbols.getInstance(locale).getEras(), 0);
+        return trie;
+    }
+
+    // Names from legacy symbols, value of name is its index plus offset
+    private static void putAll(final Trie trie, final String[] names, final int offset) {
+        for (int i = 0; i < names.length; i++) {
+            trie.put(names[i], i + offset);
+        }
+    }
+
+    // Same case folding, as in String.regionMatches(true, ...)
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean isSpace(final char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+
+    private static final class Fields {
+        static final int UNSET = Integer.MIN_VALUE;
+
+        int era;
+        int year;
+        int month;
+        int day;
+
+        void clear() {
+            era = IsoEra.CE.getValue();
+            year = UNSET;
+            month = UNSET;
+            day = UNSET;
+        }
+
+        void set(final char field, final int value) {
+            switch (field) {
+                case 'G' -> era = value;
+                case 'y' -> year = value;
+                case 'M' -> month = value;
+                case 'd' -> day = value;
+                default -> {
+                    // Day of week doesn't define date
+                }
+            }
+        }
+    }
+
+    private interface Element {
+        /**
+         * Matches element and stores its value to fields.
+         * @return end of the element or -1, if it doesn't match.
+         */
+        int match(String text, int position, Fields fields);
+
+        boolean mayStart(char c);
+    }
+
+    /**
+     * Literal text, that is matched ignoring case. Any space matches non-empty run of spaces.
+     */
+    private record Literal(String text) implements Element {
+        @Override
+        public int match(final String text, int position, final Fields fields) {
+            for (int i = 0; i < this.text.length(); i++) {
+                final char c = this.text.charAt(i);
+                if (isSpace(c)) {
+                    if (position >= text.length() || !isSpace(text.charAt(position))) {
+                        return -1;
+                    }
+                    while (position < text.length() && isSpace(text.charAt(position))) {
+                        position++;
+                    }
+                } else if (position < text.length() && fold(text.charAt(position)) == fold(c)) {
+                    position++;
+                } else {
+                    return -1;
+                }
+            }
+            return position;
+        }
+
+        @Override
+        public boolean mayStart(final char c) {
+            final char first = text.charAt(0);
+            return isSpace(first) ? isSpace(c) : fold(c) == fold(first);
+        }
+    }
+
+    /**
+     * Number of at least {@code count} and at most {@code maxWidth} digits of any script.
+     */
+    private record NumberField(char field, int count, int maxWidth) implements Element {
+        @Override
+        public int match(final String text, final int position, final Fields fields) {
+            int value = 0;
+            int end = position;
+            for (; end < text.length() && end - position < maxWidth; end++) {
+                final int digit = Character.digit(text.charAt(end), 10);
+                if (digit < 0) {
+                    break;
+                }
+                value = value * 10 + digit;
+            }
+            if (end == position) {
+                return -1;
+            }
+            if (field == 'y' && count == 2 && end - position == 2) {
+                value += REDUCED_YEAR_BASE;
+            }
+            fields.set(field, value);
+            return end;
+        }
+
+        @Override
+        public boolean mayStart(final char c) {
+            return Character.digit(c, 10) >= 0;
+        }
+    }
+
+    private record NameField(char field, Trie names) implements Element {
+        @Override
+        public int match(final String text, final int position, final Fields fields) {
+            final Trie name = names.longest(text, position);
+            if (name == null) {
+                return -1;
+            }
+            fields.set(field, name.value);
+            return position + name.depth;
+        }
+
+        @Override
+        public boolean mayStart(final char c) {
+            return names.children.containsKey(fold(c));
+        }
+    }
+
+    /**
+     * Names by their case folded characters.
+     */
+    private static final class Trie {
+        private final Map<Character, Trie> children = new HashMap<>();
+        private final int depth;
+        private int value = -1;
+
+        Trie() {
+            this(0);
+        }
+
+        private Trie(final int depth) {
+            this.depth = depth;
+        }
+
+        void put(final String name, final int value) {
+            Trie node = this;
+            for (int i = 0; i < name.length(); i++) {
+                final int childDepth = i + 1;
+                node = node.children.computeIfAbsent(fold(name.charAt(i)), c -> new Trie(childDepth));
+            }
+            if (node != this) {
+                node.value = value;
+            }
+        }
+
+        // Returns node of the longest name, that starts at the position, or null
+        Trie longest(final String text, final int position) {
+            Trie node = this;
+            Trie found = null;
+            for (int i = position; i < text.length(); i++) {
+                node = node.children.get(fold(text.charAt(i)));
+                if (node == null) {
+                    break;
+                }
+                if (node.value != -1) {
+                    found = node;
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder events of analysis. Events are disabled, unless recording is started,
+ * and disabled events cost nothing after JIT compilation.
+ */
+final class FlightEvents {
+    private static final String CATEGORY = "Text Statistics";
+
+    private FlightEvents() {
+    }
+
+    @Name("info.kgeorgiy.ja.smirnov.i18n.ReadChunk")
+    @Label("Read Chunk")
+    @Description("Reading and decoding of a chunk of input file")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ReadChunk extends Event {
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("info.kgeorgiy.ja.smirnov.i18n.ParseChunk")
+    @Label("Parse Chunk")
+    @Description("Parsing of a chunk of text, that starts and ends on sentence boundaries")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class ParseChunk extends Event {
+        @Label("Chars")
+        long chars;
+        @Label("Sentences")
+        long sentences;
+        @Label("Tokens")
+        long tokens;
+        @Label("Numbers")
+        long numbers;
+        @Label("Amounts")
+        long amounts;
+        @Label("Dates")
+        long dates;
+    }
+
+    @Name("info.kgeorgiy.ja.smirnov.i18n.Report")
+    @Label("Report")
+    @Description("Writing of statistics to output file")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static final class Report extends Event {
+        @Label("Output File")
+        String outputFile;
+        @Label("Format")
+        String format;
+        @Label("Locale")
+        String locale;
+    }
+
+    @Name("info.kgeorgiy.ja.smirnov.i18n.Analysis")
+    @Label("Analysis")
+    @Description("Analysis of input file from reading to report")
+    @Category(CATEGORY)
+    static final class Analysis extends Event {
+        @Label("Input File")
+        String inputFile;
+        @Label("Threads")
+        int threads;
+        @Label("Bytes Read")
+        @DataAmount
+        long bytesRead;
+        @Label("Chars Parsed")
+        long charsParsed;
+    }
+}
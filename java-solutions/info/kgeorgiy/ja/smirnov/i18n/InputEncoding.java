@@ -0,0 +1,125 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression and charset of input file.
+ * Gzip is recognized by its magic bytes, so name of file doesn't matter.
+ * Charset is recognized by byte order mark, then by zero bytes of UTF-16 and then by validity of UTF-8.
+ * Otherwise text is taken to be in single-byte Windows charset of its locale.
+ */
+final class InputEncoding {
+    /**
+     * Number of bytes at the start of text, that are enough to recognize charset.
+     */
+    static final int HEAD_SIZE = 1 << 12;
+    private static final Set<String> CYRILLIC_LANGUAGES = Set.of("be", "bg", "kk", "ky", "mk", "mn", "ru", "sr", "tg", "uk");
+    private static final byte[] GZIP_MAGIC = {0x1F, (byte) 0x8B};
+    private static final byte[] ZSTD_MAGIC = {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD};
+
+    private InputEncoding() {
+    }
+
+    /**
+     * Charset of text and length of its byte order mark, that is skipped.
+     */
+    record Detected(Charset charset, int bom) {
+    }
+
+    /**
+     * Finds out whether file is compressed.
+     * @throws IOException if file is compressed in unsupported format.
+     */
+    static boolean isCompressed(final FileChannel file) throws IOException {
+        final ByteBuffer magic = ByteBuffer.allocate(ZSTD_MAGIC.length);
+        while (magic.hasRemaining() && file.read(magic, magic.position()) > 0) {
+            // Reads until magic is complete or file ends
+        }
+        if (startsWith(magic.flip(), ZSTD_MAGIC)) {
+            throw new IOException("Zstandard compressed input isn't supported, decompress it first");
+        }
+        return startsWith(magic, GZIP_MAGIC);
+    }
+
+    /**
+     * Opens stream of decompressed content of gzip file, file is read from its current position.
+     */
+    static ReadableByteChannel decompress(final FileChannel file, final int bufferSize) throws IOException {
+        return Channels.newChannel(new GZIPInputStream(Channels.newInputStream(file), bufferSize));
+    }
+
+    /**
+     * Recognizes charset of text by its first bytes.
+     * @param head first bytes of text, at most {@link #HEAD_SIZE} are looked at, buffer isn't changed.
+     * @param charset charset of text, {@code null} to recognize it.
+     * @param locale locale of text.
+     * @return charset of text, byte order mark is skipped only if it is of this charset.
+     */
+    static Detected detect(final ByteBuffer head, final Charset charset, final Locale locale) {
+        final Detected bom = bom(head);
+        if (charset != null) {
+            return new Detected(charset, bom != null && bom.charset().equals(charset) ? bom.bom() : 0);
+        }
+        if (bom != null) {
+            return bom;
+        }
+        final int length = Math.min(head.remaining(), HEAD_SIZE);
+        final int[] zeros = new int[2];
+        for (int i = 0; i < length; i++) {
+            if (head.get(head.position() + i) == 0) {
+                zeros[i % 2]++;
+            }
+        }
+        // Spaces, digits and punctuation have zero high byte in UTF-16, while other text hardly has zero bytes
+        if (zeros[1] > length / 32 && zeros[0] < zeros[1] / 4) {
+            return new Detected(StandardCharsets.UTF_16LE, 0);
+        }
+        if (zeros[0] > length / 32 && zeros[1] < zeros[0] / 4) {
+            return new Detected(StandardCharsets.UTF_16BE, 0);
+        }
+        if (isUtf8(head.slice(head.position(), length))) {
+            return new Detected(StandardCharsets.UTF_8, 0);
+        }
+        return new Detected(Charset.forName(CYRILLIC_LANGUAGES.contains(locale.getLanguage()) ? "windows-1251" : "windows-1252"), 0);
+    }
+
+    private static Detected bom(final ByteBuffer head) {
+        if (startsWith(head, new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF})) {
+            return new Detected(StandardCharsets.UTF_8, 3);
+        } else if (startsWith(head, new byte[]{(byte) 0xFE, (byte) 0xFF})) {
+            return new Detected(StandardCharsets.UTF_16BE, 2);
+        } else if (startsWith(head, new byte[]{(byte) 0xFF, (byte) 0xFE})) {
+            return new Detected(StandardCharsets.UTF_16LE, 2);
+        }
+        return null;
+    }
+
+    // Sequence cut at the end of head is valid
+    private static boolean isUtf8(final ByteBuffer bytes) {
+        return !StandardCharsets.UTF_8.newDecoder()
+                .decode(bytes, CharBuffer.allocate(bytes.remaining()), false)
+                .isError();
+    }
+
+    private static boolean startsWith(final ByteBuffer bytes, final byte[] prefix) {
+        if (bytes.remaining() < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes.get(bytes.position() + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
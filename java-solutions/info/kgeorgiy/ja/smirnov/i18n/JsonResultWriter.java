@@ -0,0 +1,281 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import info.kgeorgiy.ja.smirnov.i18n.statistics.DateStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.DoubleStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.Frequency;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.Statistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.StringStatistics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Objects;
+import java.util.function.DoubleFunction;
+
+/**
+ * Writes statistics as UTF-8 JSON, that doesn't depend on locale.
+ * Object has field {@code file} and objects {@code sentences}, {@code words}, {@code numbers},
+ * {@code amounts} and {@code dates}, absent values and statistics, that aren't chosen, are {@code null}.
+ * Object {@code custom} has objects of custom statistics by their names, with counts and strings of min and max values.
+ * Median, 90th and 99th percentiles are estimated for numbers, amounts and lengths of strings.
+ * Most frequent sentences and words are arrays of objects with value, count and error of count,
+ * values, that may have occurred only once, aren't included.
+ * Dates are ISO-8601 instants, sum of dates is number of milliseconds since the epoch.
+ * Non-finite numbers are strings {@code "NaN"}, {@code "Infinity"} and {@code "-Infinity"}.
+ * Document is written as it is produced, values are formatted into reused buffer.
+ * Not thread-safe.
+ */
+public class JsonResultWriter implements ResultWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Valid in JSON, but not in JavaScript strings
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+    private final StringBuilder value = new StringBuilder();
+    private char[] chars = new char[64];
+    private Writer writer;
+    private boolean first;
+
+    @Override
+    public void write(final ParseResult result, final String inputFileName, final OutputStream out) throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            beginObject();
+            name("file");
+            string(inputFileName);
+            final StatisticSelection selection = result.selection();
+            strings("sentences", selection.contains(StatisticCategory.SENTENCES) ? result.sentenceStatistics() : null);
+            strings("words", selection.contains(StatisticCategory.WORDS) ? result.wordStatistics() : null);
+            doubles("numbers", selection.contains(StatisticCategory.NUMBERS) ? result.numberStatistics() : null);
+            doubles("amounts", selection.contains(StatisticCategory.AMOUNTS) ? result.currencyStatistics() : null);
+            dates("dates", selection.contains(StatisticCategory.DATES) ? result.dateStatics() : null);
+            name("custom");
+            beginObject();
+            for (int i = 0; i < result.customStatistics().size(); i++) {
+                custom(selection.providers().get(i).name(), result.customStatistics().get(i));
+            }
+            endObject();
+            endObject();
+            writer.write(System.lineSeparator());
+            writer.flush();
+        } finally {
+            writer = null;
+        }
+    }
+
+    private void strings(final String name, final StringStatistics statistics) throws IOException {
+        name(name);
+        if (statistics == null) {
+            string(null);
+            return;
+        }
+        beginObject();
+        counts(statistics.getCount(), statistics.getUniqueCount());
+        name("min");
+        string(statistics.getMin());
+        name("max");
+        string(statistics.getMax());
+        final boolean empty = statistics.getMinLengthString() == null;
+        name("minLength");
+        number(empty ? null : statistics.getMinLength());
+        name("minLengthValue");
+        string(statistics.getMinLengthString());
+        name("maxLength");
+        number(empty ? null : statistics.getMaxLength());
+        name("maxLengthValue");
+        string(statistics.getMaxLengthString());
+        name("averageLength");
+        number(statistics.getAverageLength());
+        quantiles("Length", statistics::getLengthQuantile);
+        name("mostFrequent");
+        writer.write('[');
+        boolean firstFrequency = true;
+        for (final Frequency<String> frequency : statistics.getMostFrequent()) {
+            if (!frequency.isRepeated()) {
+                continue;
+            }
+            if (!firstFrequency) {
+                writer.write(',');
+            }
+            firstFrequency = false;
+            beginObject();
+            name("value");
+            string(frequency.value());
+            name("count");
+            number(frequency.count());
+            name("error");
+            number(frequency.error());
+            endObject();
+        }
+        writer.write(']');
+        endObject();
+    }
+
+    private void doubles(final String name, final DoubleStatistics statistics) throws IOException {
+        name(name);
+        if (statistics == null) {
+            string(null);
+            return;
+        }
+        beginObject();
+        counts(statistics.getCount(), statistics.getUniqueCount());
+        name("min");
+        number(statistics.getMin());
+        name("max");
+        number(statistics.getMax());
+        name("sum");
+        number(statistics.getSum());
+        name("average");
+        number(statistics.getAverage());
+        quantiles("", statistics::getQuantile);
+        endObject();
+    }
+
+    private void quantiles(final String suffix, final DoubleFunction<Double> quantile) throws IOException {
+        name("median" + suffix);
+        number(quantile.apply(0.5));
+        name("p90" + suffix);
+        number(quantile.apply(0.9));
+        name("p99" + suffix);
+        number(quantile.apply(0.99));
+    }
+
+    private void dates(final String name, final DateStatistics statistics) throws IOException {
+        name(name);
+        if (statistics == null) {
+            string(null);
+            return;
+        }
+        beginObject();
+        counts(statistics.getCount(), statistics.getUniqueCount());
+        name("min");
+        date(statistics.getMin());
+        name("max");
+        date(statistics.getMax());
+        name("sum");
+        number(statistics.getSum());
+        name("average");
+        date(statistics.getAverage());
+        endObject();
+    }
+
+    private void custom(final String name, final Statistics<?> statistics) throws IOException {
+        name(name);
+        beginObject();
+        counts(statistics.getCount(), statistics.getUniqueCount());
+        name("min");
+        string(Objects.toString(statistics.getMin(), null));
+        name("max");
+        string(Objects.toString(statistics.getMax(), null));
+        endObject();
+    }
+
+    private void counts(final long count, final long unique) throws IOException {
+        name("count");
+        value.setLength(0);
+        flushValue(value.append(count));
+        name("unique");
+        value.setLength(0);
+        flushValue(value.append(unique));
+    }
+
+    private void beginObject() throws IOException {
+        writer.write('{');
+        first = true;
+    }
+
+    private void endObject() throws IOException {
+        writer.write('}');
+        first = false;
+    }
+
+    private void name(final String name) throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        first = false;
+        string(name);
+        writer.write(':');
+    }
+
+    private void string(final String string) throws IOException {
+        if (string == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c < ' ' || c == '"' || c == '\\' || c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                writer.write(string, start, i - start);
+                escape(c);
+                start = i + 1;
+            }
+        }
+        writer.write(string, start, string.length() - start);
+        writer.write('"');
+    }
+
+    private void escape(final char c) throws IOException {
+        writer.write('\\');
+        switch (c) {
+            case '"', '\\' -> writer.write(c);
+            case '\n' -> writer.write('n');
+            case '\r' -> writer.write('r');
+            case '\t' -> writer.write('t');
+            default -> {
+                writer.write('u');
+                for (int shift = 12; shift >= 0; shift -= 4) {
+                    writer.write(HEX[(c >> shift) & 0xF]);
+                }
+            }
+        }
+    }
+
+    private void number(final Number number) throws IOException {
+        if (number == null) {
+            writer.write("null");
+            return;
+        }
+        value.setLength(0);
+        if (number instanceof Double d) {
+            if (d.isNaN() || d.isInfinite()) {
+                string(d.toString());
+                return;
+            }
+            value.append(d.doubleValue());
+        } else if (number instanceof BigInteger integer) {
+            value.append(integer);
+        } else {
+            value.append(number.longValue());
+        }
+        flushValue(value);
+    }
+
+    private void date(final Date date) throws IOException {
+        if (date == null) {
+            writer.write("null");
+            return;
+        }
+        value.setLength(0);
+        value.append('"');
+        DateTimeFormatter.ISO_INSTANT.formatTo(date.toInstant(), value);
+        flushValue(value.append('"'));
+    }
+
+    // Writer.append(CharSequence) makes a string, so chars are copied to reused array
+    private void flushValue(final StringBuilder builder) throws IOException {
+        if (chars.length < builder.length()) {
+            chars = new char[builder.length()];
+        }
+        builder.getChars(0, builder.length(), chars, 0);
+        writer.write(chars, 0, builder.length());
+    }
+}
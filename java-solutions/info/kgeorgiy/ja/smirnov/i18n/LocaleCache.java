@@ -0,0 +1,74 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded cache of locale dependent objects, least recently used locales are evicted.
+ * Cached object is a prototype: every lookup returns its copy, so objects, that aren't thread-safe,
+ * are confined to the thread, that has got them.
+ * Thread-safe.
+ * @param <V> type of objects.
+ */
+class LocaleCache<V> {
+    private final Function<Locale, V> factory;
+    private final UnaryOperator<V> copier;
+    private final Map<Locale, V> prototypes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates cache.
+     * @param capacity maximal number of cached locales.
+     * @param factory creates object for locale.
+     * @param copier copies object, it may return the object itself, if it is thread-safe.
+     */
+    LocaleCache(final int capacity, final Function<Locale, V> factory, final UnaryOperator<V> copier) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+        this.factory = factory;
+        this.copier = copier;
+        this.prototypes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Locale, V> eldest) {
+                final boolean evict = size() > capacity;
+                if (evict) {
+                    evictions++;
+                }
+                return evict;
+            }
+        };
+    }
+
+    V get(final Locale locale) {
+        V prototype;
+        synchronized (this) {
+            prototype = prototypes.get(locale);
+            if (prototype != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (prototype == null) {
+            // Created outside of lock, as it is slow. Concurrent misses may create it twice
+            final V created = factory.apply(locale);
+            synchronized (this) {
+                prototype = prototypes.putIfAbsent(locale, created);
+                if (prototype == null) {
+                    prototype = created;
+                }
+            }
+        }
+        return copier.apply(prototype);
+    }
+
+    synchronized CacheMetrics getMetrics() {
+        return new CacheMetrics(hits, misses, evictions);
+    }
+}
@@ -0,0 +1,115 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.text.BreakIterator;
+import java.text.Collator;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caches of locale dependent formats, iterators, templates and bundles, shared by all parsers and handlers.
+ * Creating them costs more than parsing of a small text, so they are created once per locale and copied.
+ */
+public final class LocaleResources {
+    public static final int CAPACITY = 32;
+    private static final String BUNDLE_BASE_NAME = "StatisticsResourceBundle";
+
+    private static final LocaleCache<Parsing> PARSING = new LocaleCache<>(CAPACITY, Parsing::of, Parsing::copy);
+    private static final LocaleCache<BreakIterator> SENTENCE_ITERATORS = new LocaleCache<>(
+            CAPACITY, BreakIterator::getSentenceInstance, iterator -> (BreakIterator) iterator.clone()
+    );
+    private static final LocaleCache<ParseResultHandler.Templates> TEMPLATES = new LocaleCache<>(
+            CAPACITY, ParseResultHandler.Templates::of, ParseResultHandler.Templates::copy
+    );
+    // Bundles are immutable, so they are shared
+    private static final LocaleCache<ResourceBundle> BUNDLES = new LocaleCache<>(
+            CAPACITY, LocaleResources::loadBundle, UnaryOperator.identity()
+    );
+
+    private LocaleResources() {
+    }
+
+    static Parsing parsing(final Locale locale) {
+        return PARSING.get(locale);
+    }
+
+    static BreakIterator sentenceIterator(final Locale locale) {
+        return SENTENCE_ITERATORS.get(locale);
+    }
+
+    static ParseResultHandler.Templates templates(final Locale locale) {
+        return TEMPLATES.get(locale);
+    }
+
+    static ResourceBundle bundle(final Locale locale) {
+        return BUNDLES.get(locale);
+    }
+
+    // Without bundle of the locale, default control takes bundle of default locale, so root bundle is taken explicitly.
+    // Control without fallback can't be used, as it isn't supported in named modules
+    private static ResourceBundle loadBundle(final Locale locale) {
+        final ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_BASE_NAME, locale);
+        final Locale found = bundle.getLocale();
+        if (found.equals(Locale.ROOT) || found.getLanguage().equals(locale.getLanguage())) {
+            return bundle;
+        }
+        return ResourceBundle.getBundle(BUNDLE_BASE_NAME, Locale.ROOT);
+    }
+
+    public static CacheMetrics getParsingMetrics() {
+        return PARSING.getMetrics();
+    }
+
+    public static CacheMetrics getSentenceIteratorMetrics() {
+        return SENTENCE_ITERATORS.getMetrics();
+    }
+
+    public static CacheMetrics getTemplateMetrics() {
+        return TEMPLATES.getMetrics();
+    }
+
+    public static CacheMetrics getBundleMetrics() {
+        return BUNDLES.getMetrics();
+    }
+
+    /**
+     * Everything {@link TextParser} needs for one locale. Not thread-safe.
+     */
+    record Parsing(
+            NumberLexer numberLexer,
+            NumberLexer currencyLexer,
+            DateMatcher dateMatcher,
+            TokenClassifier classifier,
+            BreakIterator sentenceIterator,
+            BreakIterator wordIterator,
+            Collator collator
+    ) {
+        static Parsing of(final Locale locale) {
+            final NumberFormat numberFormat = NumberFormat.getNumberInstance(locale);
+            final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(locale);
+            return new Parsing(
+                    new NumberLexer(numberFormat),
+                    new NumberLexer(currencyFormat),
+                    new DateMatcher(locale),
+                    new TokenClassifier(numberFormat, currencyFormat),
+                    BreakIterator.getSentenceInstance(locale),
+                    BreakIterator.getWordInstance(locale),
+                    Collator.getInstance(locale)
+            );
+        }
+
+        // Classifier is immutable, so it is shared
+        Parsing copy() {
+            return new Parsing(
+                    numberLexer.copy(),
+                    currencyLexer.copy(),
+                    dateMatcher.copy(),
+                    classifier,
+                    (BreakIterator) sentenceIterator.clone(),
+                    (BreakIterator) wordIterator.clone(),
+                    (Collator) collator.clone()
+            );
+        }
+    }
+}
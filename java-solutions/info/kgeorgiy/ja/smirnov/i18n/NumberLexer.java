@@ -0,0 +1,293 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+
+/**
+ * Recognizes numbers the same way as {@link DecimalFormat#parse(String, ParsePosition)} does,
+ * but scans text directly and returns primitive double.
+ * Symbols, affixes and separators are taken from the format once.
+ * Formats, that aren't plain {@code DecimalFormat}, are used as is.
+ * Not thread-safe.
+ */
+class NumberLexer {
+    // Powers of ten, that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final NumberFormat fallback;
+    private final String nan;
+    private final String infinity;
+    private final String positivePrefix;
+    private final String negativePrefix;
+    private final String positiveSuffix;
+    private final String negativeSuffix;
+    private final String exponentSeparator;
+    private final String minusSign;
+    private final char zero;
+    private final char decimal;
+    private final char grouping;
+    private final boolean groupingUsed;
+    private final boolean integerOnly;
+
+    // State of the current number: significant digits and position of decimal point
+    private final StringBuilder digits = new StringBuilder();
+    private long mantissa;
+    private int decimalAt;
+    private boolean infinite;
+    private int exponent;
+
+    NumberLexer(final NumberFormat format) {
+        if (format instanceof DecimalFormat decimalFormat && decimalFormat.getMultiplier() == 1
+                && !decimalFormat.isParseBigDecimal()) {
+            fallback = null;
+            final DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+            final boolean currency = decimalFormat.toPattern().indexOf('¤') >= 0;
+            nan = symbols.getNaN();
+            infinity = symbols.getInfinity();
+            positivePrefix = decimalFormat.getPositivePrefix();
+            negativePrefix = decimalFormat.getNegativePrefix();
+            positiveSuffix = decimalFormat.getPositiveSuffix();
+            negativeSuffix = decimalFormat.getNegativeSuffix();
+            exponentSeparator = symbols.getExponentSeparator();
+            // Full minus sign text isn't public, but it is the negative prefix of a plain pattern
+            minusSign = new DecimalFormat("0", symbols).getNegativePrefix();
+            zero = symbols.getZeroDigit();
+            decimal = currency ? symbols.getMonetaryDecimalSeparator() : symbols.getDecimalSeparator();
+            grouping = currency ? symbols.getMonetaryGroupingSeparator() : symbols.getGroupingSeparator();
+            groupingUsed = decimalFormat.isGroupingUsed();
+            integerOnly = decimalFormat.isParseIntegerOnly();
+        } else {
+            fallback = format;
+            nan = infinity = positivePrefix = negativePrefix = positiveSuffix = negativeSuffix = null;
+            exponentSeparator = minusSign = null;
+            zero = decimal = grouping = 0;
+            groupingUsed = integerOnly = false;
+        }
+    }
+
+    private NumberLexer(final NumberLexer other) {
+        fallback = other.fallback == null ? null : (NumberFormat) other.fallback.clone();
+        nan = other.nan;
+        infinity = other.infinity;
+        positivePrefix = other.positivePrefix;
+        negativePrefix = other.negativePrefix;
+        positiveSuffix = other.positiveSuffix;
+        negativeSuffix = other.negativeSuffix;
+        exponentSeparator = other.exponentSeparator;
+        minusSign = other.minusSign;
+        zero = other.zero;
+        decimal = other.decimal;
+        grouping = other.grouping;
+        groupingUsed = other.groupingUsed;
+        integerOnly = other.integerOnly;
+    }
+
+    /**
+     * Creates lexer of the same format, that may be used independently of this one.
+     */
+    NumberLexer copy() {
+        return new NumberLexer(this);
+    }
+
+    /**
+     * Parses number, starting at the given position.
+     * @return parsed number. If there is no number, position isn't changed and result is undefined.
+     */
+    double parse(final String text, final ParsePosition position) {
+        if (fallback != null) {
+            final Number number = fallback.parse(text, position);
+            return number == null ? Double.NaN : number.doubleValue();
+        }
+        final int start = position.getIndex();
+        if (text.startsWith(nan, start)) {
+            position.setIndex(start + nan.length());
+            return Double.NaN;
+        }
+
+        boolean positive = text.startsWith(positivePrefix, start);
+        boolean negative = text.startsWith(negativePrefix, start);
+        if (positive && negative) {
+            // Take the longest
+            positive = positivePrefix.length() >= negativePrefix.length();
+            negative = negativePrefix.length() >= positivePrefix.length();
+        }
+        final int numberStart;
+        if (positive) {
+            numberStart = start + positivePrefix.length();
+        } else if (negative) {
+            numberStart = start + negativePrefix.length();
+        } else {
+            return Double.NaN;
+        }
+
+        final int end = parseNumber(text, numberStart);
+        if (end == -1) {
+            return Double.NaN;
+        }
+
+        if (positive) {
+            positive = text.startsWith(positiveSuffix, end);
+        }
+        if (negative) {
+            negative = text.startsWith(negativeSuffix, end);
+        }
+        if (positive && negative) {
+            positive = positiveSuffix.length() >= negativeSuffix.length();
+            negative = negativeSuffix.length() >= positiveSuffix.length();
+        }
+        if (positive == negative) {
+            return Double.NaN;
+        }
+        final int index = end + (positive ? positiveSuffix.length() : negativeSuffix.length());
+        if (index == start) {
+            return Double.NaN;
+        }
+        position.setIndex(index);
+
+        if (infinite) {
+            return positive ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        }
+        if (digits.isEmpty() && !positive && integerOnly) {
+            // Integer zero has no sign
+            return 0.0;
+        }
+        final double value = getValue();
+        return positive ? value : -value;
+    }
+
+    private int digit(final char c) {
+        final int digit = c - zero;
+        return digit >= 0 && digit <= 9 ? digit : Character.digit(c, 10);
+    }
+
+    private void appendDigit(final int digit) {
+        if (digits.length() < MAX_LONG_DIGITS) {
+            mantissa = mantissa * 10 + digit;
+        }
+        digits.append((char) ('0' + digit));
+    }
+
+    // Returns end of the number or -1, if there is no number
+    private int parseNumber(final String text, int position) {
+        digits.setLength(0);
+        mantissa = 0;
+        decimalAt = 0;
+        infinite = false;
+        if (text.startsWith(infinity, position)) {
+            infinite = true;
+            return position + infinity.length();
+        }
+
+        boolean sawDecimal = false;
+        boolean sawDigit = false;
+        exponent = 0;
+        int backup = -1;
+        for (; position < text.length(); ++position) {
+            final char c = text.charAt(position);
+            final int digit = digit(c);
+            if (digit == 0) {
+                backup = -1;
+                sawDigit = true;
+                if (digits.isEmpty()) {
+                    // Leading zeros are not significant
+                    if (sawDecimal) {
+                        --decimalAt;
+                    }
+                } else {
+                    appendDigit(digit);
+                }
+            } else if (digit > 0 && digit <= 9) {
+                sawDigit = true;
+                appendDigit(digit);
+                backup = -1;
+            } else if (c == decimal) {
+                if (integerOnly || sawDecimal) {
+                    break;
+                }
+                decimalAt = digits.length();
+                sawDecimal = true;
+            } else if (c == grouping && groupingUsed) {
+                if (sawDecimal) {
+                    break;
+                }
+                // Grouping separator should be followed by a digit
+                backup = position;
+            } else if (text.startsWith(exponentSeparator, position)) {
+                final int exponentEnd = parseExponent(text, position + exponentSeparator.length());
+                if (exponentEnd != -1) {
+                    position = exponentEnd;
+                }
+                break;
+            } else {
+                break;
+            }
+        }
+        if (backup != -1) {
+            position = backup;
+        }
+        if (!sawDecimal) {
+            decimalAt = digits.length();
+        }
+        decimalAt += exponent;
+        if (!sawDigit && digits.isEmpty()) {
+            return -1;
+        }
+        return position;
+    }
+
+    // Exponent is an integer with optional minus sign, that fits in long and is truncated to int
+    private int parseExponent(final String text, int position) {
+        final boolean negative = text.startsWith(minusSign, position);
+        if (negative) {
+            position += minusSign.length();
+        }
+        final int start = position;
+        // Accumulated negated, as Long.MIN_VALUE is allowed
+        long value = 0;
+        for (; position < text.length(); position++) {
+            final int digit = digit(text.charAt(position));
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit) {
+                return -1;
+            }
+            value = value * 10 - digit;
+        }
+        if (position == start || !negative && value == Long.MIN_VALUE) {
+            return -1;
+        }
+        exponent = (int) (negative ? value : -value);
+        return position;
+    }
+
+    private double getValue() {
+        int length = digits.length();
+        while (length > 0 && digits.charAt(length - 1) == '0') {
+            length--;
+        }
+        if (length == 0) {
+            return 0.0;
+        }
+        final int power = decimalAt - length;
+        if (length <= MAX_LONG_DIGITS) {
+            long exact = mantissa;
+            for (int i = length; i < Math.min(digits.length(), MAX_LONG_DIGITS); i++) {
+                exact /= 10;
+            }
+            // Both operands are exact, so the result is correctly rounded
+            if (exact <= MAX_EXACT_MANTISSA && power >= -22 && power <= 22) {
+                return power >= 0 ? exact * POWERS_OF_TEN[power] : exact / POWERS_OF_TEN[-power];
+            }
+        }
+        digits.setLength(length);
+        return Double.parseDouble(digits.append('E').append(power).toString());
+    }
+}
@@ -0,0 +1,43 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.util.Locale;
+
+/**
+ * Format of statistics output.
+ */
+public enum OutputFormat {
+    /**
+     * Localized report for humans.
+     */
+    TEXT(".txt"),
+    /**
+     * Locale-neutral JSON, see {@link JsonResultWriter}.
+     */
+    JSON(".json"),
+    /**
+     * Compact locale-neutral binary encoding, see {@link BinaryResultWriter}.
+     */
+    BINARY(".bin");
+
+    private final String extension;
+
+    OutputFormat(final String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Creates writer of this format.
+     * @param locale locale of report, it is used by {@link #TEXT} only.
+     */
+    public ResultWriter writer(final Locale locale) {
+        return switch (this) {
+            case TEXT -> new ParseResultHandler(locale);
+            case JSON -> new JsonResultWriter();
+            case BINARY -> new BinaryResultWriter();
+        };
+    }
+}
@@ -0,0 +1,161 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Parses chunks of text in parallel and merges their statistics in the order of chunks,
+ * so the result depends only on chunks, not on number of threads.
+ * It is the same as of {@link TextParser}, except quantiles and most frequent values,
+ * when there are too many different values to keep them exactly: their estimations depend on chunks.
+ * Without pool chunks are parsed on the calling thread, in the same way.
+ */
+public class ParallelTextParser implements Consumer<String> {
+    private final ForkJoinPool pool;
+    private final int maxPending;
+    private final Locale locale;
+    private final UniqueCounting counting;
+    private final StatisticSelection selection;
+    private final Deque<ForkJoinTask<TextParser>> pending = new ArrayDeque<>();
+    private final ParseResult result;
+    private final AnalysisMetrics metrics = new AnalysisMetrics();
+
+    /**
+     * Creates parser, that uses given pool.
+     * @param pool pool to parse chunks in, {@code null} to parse them on the calling thread.
+     * @param maxPending maximal number of chunks that are parsed or wait for merge.
+     * @param locale locale of text.
+     * @param counting way of counting unique values.
+     * @param selection statistics to collect.
+     */
+    public ParallelTextParser(
+            final ForkJoinPool pool,
+            final int maxPending,
+            final Locale locale,
+            final UniqueCounting counting,
+            final StatisticSelection selection
+    ) {
+        this(pool, maxPending, locale, counting, selection, new TextParser(locale, counting, selection).getResult());
+    }
+
+    private ParallelTextParser(
+            final ForkJoinPool pool,
+            final int maxPending,
+            final Locale locale,
+            final UniqueCounting counting,
+            final StatisticSelection selection,
+            final ParseResult result
+    ) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Number of pending chunks should be positive: " + maxPending);
+        }
+        this.pool = pool;
+        this.maxPending = maxPending;
+        this.locale = locale;
+        this.counting = counting;
+        this.selection = selection;
+        this.result = result;
+    }
+
+    public ParallelTextParser(
+            final ForkJoinPool pool,
+            final Locale locale,
+            final UniqueCounting counting,
+            final StatisticSelection selection
+    ) {
+        this(pool, pool.getParallelism() * 2, locale, counting, selection);
+    }
+
+    /**
+     * Creates parser, that parses chunks on the calling thread.
+     * @param locale locale of text.
+     * @param counting way of counting unique values.
+     * @param selection statistics to collect.
+     */
+    public ParallelTextParser(final Locale locale, final UniqueCounting counting, final StatisticSelection selection) {
+        this(null, 1, locale, counting, selection);
+    }
+
+    /**
+     * Creates parser, that continues statistics of previous text and parses chunks on the calling thread.
+     * @param result statistics of previous text, chunks are merged into them.
+     * @param locale locale of text.
+     * @param counting way of counting unique values.
+     * @param selection statistics to collect.
+     */
+    ParallelTextParser(
+            final ParseResult result,
+            final Locale locale,
+            final UniqueCounting counting,
+            final StatisticSelection selection
+    ) {
+        this(null, 1, locale, counting, selection, result);
+    }
+
+    public ParallelTextParser(final ForkJoinPool pool, final Locale locale, final UniqueCounting counting) {
+        this(pool, locale, counting, StatisticSelection.all());
+    }
+
+    public ParallelTextParser(final ForkJoinPool pool, final UniqueCounting counting) {
+        this(pool, Locale.getDefault(), counting);
+    }
+
+    public ParallelTextParser(final ForkJoinPool pool) {
+        this(pool, UniqueCounting.EXACT);
+    }
+
+    /**
+     * Submits next chunk of text for parsing.
+     * @param chunk text that starts and ends on sentence boundaries.
+     */
+    @Override
+    public void accept(final String chunk) {
+        if (pool == null) {
+            merge(parse(chunk));
+            return;
+        }
+        if (pending.size() == maxPending) {
+            mergeFirst();
+        }
+        pending.add(pool.submit(() -> parse(chunk)));
+    }
+
+    private TextParser parse(final String chunk) {
+        final TextParser parser = new TextParser(locale, counting, selection);
+        parser.parse(chunk);
+        return parser;
+    }
+
+    /**
+     * Waits for all submitted chunks to be parsed.
+     * @return statistics of all submitted chunks.
+     */
+    public ParseResult getResult() {
+        while (!pending.isEmpty()) {
+            mergeFirst();
+        }
+        return result;
+    }
+
+    /**
+     * Gets metrics of chunks, that are already merged. All chunks are merged by {@link #getResult()}.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void mergeFirst() {
+        merge(pending.remove().join());
+    }
+
+    private void merge(final TextParser parser) {
+        result.merge(parser.getResult());
+        metrics.merge(parser.getMetrics());
+    }
+}
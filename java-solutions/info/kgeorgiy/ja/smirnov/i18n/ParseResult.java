@@ -4,10 +4,83 @@ import info.kgeorgiy.ja.smirnov.i18n.statistics.DateStatistics;
 import info.kgeorgiy.ja.smirnov.i18n.statistics.DoubleStatistics;
 import info.kgeorgiy.ja.smirnov.i18n.statistics.StringStatistics;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Statistics of text. Statistics of categories, that aren't chosen, are always empty.
+ * @param selection chosen statistics.
+ * @param customStatistics custom statistics in order of {@link StatisticSelection#providers()}.
+ */
 public record ParseResult(
         StringStatistics sentenceStatistics,
         StringStatistics wordStatistics,
         DoubleStatistics numberStatistics,
         DoubleStatistics currencyStatistics,
-        DateStatistics dateStatics) {
-}
\ No newline at end of file
+        DateStatistics dateStatics,
+        StatisticSelection selection,
+        List<TokenStatistics<?>> customStatistics) {
+
+    public ParseResult {
+        customStatistics = List.copyOf(customStatistics);
+        if (customStatistics.size() != selection.providers().size()) {
+            throw new IllegalArgumentException("Expected " + selection.providers().size()
+                    + " custom statistics, found " + customStatistics.size());
+        }
+    }
+
+    /**
+     * Adds statistics of text, that follows text of this result.
+     * @param other result of parsing the following text with the same statistics.
+     */
+    public void merge(final ParseResult other) {
+        if (!selection.equals(other.selection)) {
+            throw new IllegalArgumentException("Different statistics are merged");
+        }
+        sentenceStatistics.merge(other.sentenceStatistics);
+        wordStatistics.merge(other.wordStatistics);
+        numberStatistics.merge(other.numberStatistics);
+        currencyStatistics.merge(other.currencyStatistics);
+        dateStatics.merge(other.dateStatics);
+        for (int i = 0; i < customStatistics.size(); i++) {
+            merge(customStatistics.get(i), other.customStatistics.get(i));
+        }
+    }
+
+    // Statistics are created by the same provider, so they have the same type
+    @SuppressWarnings("unchecked")
+    private static <T> void merge(final TokenStatistics<T> statistics, final TokenStatistics<?> other) {
+        statistics.merge((TokenStatistics<T>) other);
+    }
+
+    /**
+     * Writes state of all statistics, that may be read by {@link #readState}.
+     */
+    public void writeState(final DataOutput out) throws IOException {
+        sentenceStatistics.writeState(out);
+        wordStatistics.writeState(out);
+        numberStatistics.writeState(out);
+        currencyStatistics.writeState(out);
+        dateStatics.writeState(out);
+        for (final TokenStatistics<?> statistics : customStatistics) {
+            statistics.writeState(out);
+        }
+    }
+
+    /**
+     * Reads state written by {@link #writeState} into empty statistics.
+     * Statistics should count unique values in the same way and be chosen the same, as written ones.
+     */
+    public void readState(final DataInput in) throws IOException {
+        sentenceStatistics.readState(in);
+        wordStatistics.readState(in);
+        numberStatistics.readState(in);
+        currencyStatistics.readState(in);
+        dateStatics.readState(in);
+        for (final TokenStatistics<?> statistics : customStatistics) {
+            statistics.readState(in);
+        }
+    }
+}
@@ -4,38 +4,104 @@ import info.kgeorgiy.ja.smirnov.i18n.statistics.*;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.text.DateFormat;
+import java.text.Format;
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.TimeZone;
+import java.util.function.DoubleFunction;
 
-public class ParseResultHandler {
-    private final List<String> lines = new ArrayList<>();
-    private final ResourceBundle bundle =
-            ResourceBundle.getBundle("StatisticsResourceBundle");
+public class ParseResultHandler implements ResultWriter {
+    private final Locale locale;
+    private final Templates templates;
+    private final ResourceBundle bundle;
+    private Writer writer;
     private static final String COMMON_NUMBER_OF = "   {0}: {1, number, integer}";
     private static final String NUMBER_OF_PATTERN = COMMON_NUMBER_OF + ".";
     private static final String NUMBER_OF_WITH_UNIQUE =
             COMMON_NUMBER_OF + "{1, choice, 0#|0< ({2, number, integer} {3})}.";
+    private static final String QUANTILES_PATTERN = "   {0}: {1, number,%1$s}, {2, number,%1$s}, {3, number,%1$s}.";
+
+    public ParseResultHandler() {
+        this(Locale.getDefault());
+    }
+
+    /**
+     * Creates handler, that writes report in the given locale.
+     * @param locale locale of messages and formats.
+     */
+    public ParseResultHandler(final Locale locale) {
+        this.locale = locale;
+        this.templates = LocaleResources.templates(locale);
+        this.bundle = LocaleResources.bundle(locale);
+    }
 
     public void save(final ParseResult result, final String inputFileName, final String outputFileName) {
-        withPattern("{0} \"{1}\"", bundle.getString("AnalyzedFile"), inputFileName);
-        handleSummary(result);
-        handleSentences(result.sentenceStatistics());
-        handleWords(result.wordStatistics());
-        handleNumbers(result.numberStatistics());
-        handleCurrency(result.currencyStatistics());
-        handleDates(result.dateStatics());
-        save(outputFileName);
+        try (final BufferedWriter outputStream = Files.newBufferedWriter(Path.of(outputFileName))) {
+            write(result, inputFileName, outputStream);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(final ParseResult result, final String inputFileName, final OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        write(result, inputFileName, writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes report line by line, as it is produced. Only chosen statistics are reported, custom ones are the last.
+     * @param result statistics to report.
+     * @param inputFileName name of analyzed file.
+     * @param writer destination of report, it isn't closed.
+     * @throws IOException if report can't be written.
+     */
+    public void write(final ParseResult result, final String inputFileName, final Writer writer) throws IOException {
+        this.writer = writer;
+        try {
+            withPattern(templates.file(), bundle.getString("AnalyzedFile"), inputFileName);
+            handleSummary(result);
+            final StatisticSelection selection = result.selection();
+            if (selection.contains(StatisticCategory.SENTENCES)) {
+                handleSentences(result.sentenceStatistics());
+            }
+            if (selection.contains(StatisticCategory.WORDS)) {
+                handleWords(result.wordStatistics());
+            }
+            if (selection.contains(StatisticCategory.NUMBERS)) {
+                handleNumbers(result.numberStatistics());
+            }
+            if (selection.contains(StatisticCategory.AMOUNTS)) {
+                handleCurrency(result.currencyStatistics());
+            }
+            if (selection.contains(StatisticCategory.DATES)) {
+                handleDates(result.dateStatics());
+            }
+            for (int i = 0; i < result.customStatistics().size(); i++) {
+                handleCustom(selection.providers().get(i), result.customStatistics().get(i));
+            }
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            this.writer = null;
+        }
     }
 
 
     private void handleNumberOf(final String name, final Statistics<?> statistics) {
         final long count = statistics.getCount();
-        withPattern(NUMBER_OF_PATTERN,
+        withPattern(templates.numberOf(),
                 bundle.getString("Number-of-" + name), count);
     }
 
@@ -48,12 +114,12 @@ public class ParseResultHandler {
         } else {
             different = bundle.getString("many-different");
         }
-        withPattern(NUMBER_OF_WITH_UNIQUE,
+        withPattern(templates.numberOfWithUnique(),
                 bundle.getString("Number-of-" + name), count, unique, different);
     }
 
     private void withNoneValue(final String key) {
-        withPattern("   {0}: {1}.", bundle.getString(key), bundle.getString("NoneValue"));
+        withPattern(templates.keyValue(), bundle.getString(key), bundle.getString("NoneValue"));
     }
 
     private void withMaybeNoneValue(final String key, final Object value, final Runnable runnable) {
@@ -72,41 +138,60 @@ public class ParseResultHandler {
         withMaybeNoneValue(
                 key,
                 value,
-                () -> withPattern("   {0}: {1, number, integer} (\"{2}\").", bundle.getString(key), length,
+                () -> withPattern(templates.keyLength(), bundle.getString(key), length,
                         replaceLineSeparator(value)
                 )
         );
     }
 
-    private void handleKeyValue(final String key, final Object value, final String type, final String style) {
+    private void handleKeyValue(final String key, final Object value, final MessageFormat format) {
         withMaybeNoneValue(
                 key,
                 value,
-                () -> withPattern("   {0}: {1, " + type + ", " + style + "}.", bundle.getString(key), value)
+                () -> withPattern(format, bundle.getString(key), value)
         );
     }
 
     private void handleKeyValueString(final String key, final String value) {
-        withMaybeNoneValue(key, value, () -> handleKeyValue(key, "\"" + replaceLineSeparator(value) + "\"", "", ""));
+        withMaybeNoneValue(key, value, () -> handleKeyValue(key, "\"" + replaceLineSeparator(value) + "\"", templates.keyValue()));
     }
 
     private void withStatisticHeader(final String name) {
-        withPattern("{0}", bundle.getString("Statistics-by-" + name));
+        withLine(bundle.getString("Statistics-by-" + name));
     }
 
 
-    private void withPattern(final String pattern, Object... args) {
-        final String message = MessageFormat.format(pattern, args);
-        lines.add(message);
+    private void withPattern(final MessageFormat format, Object... args) {
+        withLine(format.format(args));
+    }
+
+    private void withLine(final String line) {
+        try {
+            writer.write(line);
+            writer.write(System.lineSeparator());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private void handleSummary(final ParseResult result) {
-        withPattern("{0}", bundle.getString("SummaryStatistics"));
-        handleNumberOf("sentences", result.sentenceStatistics());
-        handleNumberOf("words", result.wordStatistics());
-        handleNumberOf("numbers", result.numberStatistics());
-        handleNumberOf("amounts", result.currencyStatistics());
-        handleNumberOf("dates", result.dateStatics());
+        withLine(bundle.getString("SummaryStatistics"));
+        final StatisticSelection selection = result.selection();
+        if (selection.contains(StatisticCategory.SENTENCES)) {
+            handleNumberOf("sentences", result.sentenceStatistics());
+        }
+        if (selection.contains(StatisticCategory.WORDS)) {
+            handleNumberOf("words", result.wordStatistics());
+        }
+        if (selection.contains(StatisticCategory.NUMBERS)) {
+            handleNumberOf("numbers", result.numberStatistics());
+        }
+        if (selection.contains(StatisticCategory.AMOUNTS)) {
+            handleNumberOf("amounts", result.currencyStatistics());
+        }
+        if (selection.contains(StatisticCategory.DATES)) {
+            handleNumberOf("dates", result.dateStatics());
+        }
     }
 
 
@@ -121,14 +206,40 @@ public class ParseResultHandler {
         handleKeyValueString("Max-" + header, statistics.getMax());
         handleKeyValueLength("Max-length-" + header, statistics.getMaxLength(), statistics.getMaxLengthString());
         handleKeyValueLength("Min-length-" + header, statistics.getMinLength(), statistics.getMinLengthString());
-        handleKeyValue("Average-" + header, statistics.getAverageLength(), "number", "0.##");
+        handleKeyValue("Average-" + header, statistics.getAverageLength(), templates.number());
+        handleQuantiles("Quantiles-" + header, statistics::getLengthQuantile, templates.quantiles());
+        handleMostFrequent("Most-frequent-" + header, statistics.getMostFrequent());
+    }
+
+    // Median, 90th and 99th percentiles
+    private void handleQuantiles(final String key, final DoubleFunction<Double> quantile, final MessageFormat format) {
+        final Double median = quantile.apply(0.5);
+        withMaybeNoneValue(key, median,
+                () -> withPattern(format, bundle.getString(key), median, quantile.apply(0.9), quantile.apply(0.99)));
     }
 
-    private void handleSummable(final String header, final SummableStatistics<?, ?, ?> statistics, String type, String style) {
+    // Values, that may have occurred once, aren't frequent
+    private void handleMostFrequent(final String key, final List<Frequency<String>> frequencies) {
+        final StringBuilder values = new StringBuilder();
+        for (final Frequency<String> frequency : frequencies) {
+            if (frequency.isRepeated()) {
+                if (!values.isEmpty()) {
+                    values.append(", ");
+                }
+                values.append(templates.frequency().format(new Object[]{
+                        replaceLineSeparator(frequency.value()), frequency.count(), frequency.error()
+                }));
+            }
+        }
+        withMaybeNoneValue(key, values.isEmpty() ? null : values,
+                () -> withPattern(templates.keyValue(), bundle.getString(key), values));
+    }
+
+    private void handleSummable(final String header, final SummableStatistics<?, ?, ?> statistics, final MessageFormat format) {
         handleStatistics(header, statistics);
-        handleKeyValue("Min-" + header, statistics.getMin(), type, style);
-        handleKeyValue("Max-" + header, statistics.getMax(), type, style);
-        handleKeyValue("Average-" + header, statistics.getAverage(), type, style);
+        handleKeyValue("Min-" + header, statistics.getMin(), format);
+        handleKeyValue("Max-" + header, statistics.getMax(), format);
+        handleKeyValue("Average-" + header, statistics.getAverage(), format);
     }
 
     private void handleSentences(final StringStatistics statistics) {
@@ -140,26 +251,84 @@ public class ParseResultHandler {
     }
 
     private void handleCurrency(final DoubleStatistics statistics) {
-        handleSummable("amounts", statistics, "number", "currency");
+        handleSummable("amounts", statistics, templates.currency());
+        handleQuantiles("Quantiles-amounts", statistics::getQuantile, templates.currencyQuantiles());
     }
 
     private void handleDates(final DateStatistics statistics) {
-        handleSummable("dates", statistics, "date", "full");
+        handleSummable("dates", statistics, templates.date());
     }
 
     private void handleNumbers(final DoubleStatistics statistics) {
-        handleSummable("numbers", statistics, "number", "0.##");
+        handleSummable("numbers", statistics, templates.number());
+        handleQuantiles("Quantiles-numbers", statistics::getQuantile, templates.quantiles());
     }
 
+    // Numbers and dates among values are localized by MessageFormat
+    private void handleCustom(final StatisticsProvider provider, final Statistics<?> statistics) {
+        withLine(provider.title(locale));
+        handleNumberOfWithUnique("values", statistics);
+        handleKeyValue("Min-values", statistics.getMin(), templates.keyValue());
+        handleKeyValue("Max-values", statistics.getMax(), templates.keyValue());
+    }
+
+
+    /**
+     * Report lines of one locale, compiled once. Not thread-safe, as {@link MessageFormat}.
+     */
+    record Templates(
+            MessageFormat file,
+            MessageFormat numberOf,
+            MessageFormat numberOfWithUnique,
+            MessageFormat keyValue,
+            MessageFormat keyLength,
+            MessageFormat number,
+            MessageFormat currency,
+            MessageFormat date,
+            MessageFormat frequency,
+            MessageFormat quantiles,
+            MessageFormat currencyQuantiles
+    ) {
+        static Templates of(final Locale locale) {
+            return new Templates(
+                    new MessageFormat("{0} \"{1}\"", locale),
+                    new MessageFormat(NUMBER_OF_PATTERN, locale),
+                    new MessageFormat(NUMBER_OF_WITH_UNIQUE, locale),
+                    new MessageFormat("   {0}: {1}.", locale),
+                    new MessageFormat("   {0}: {1, number, integer} (\"{2}\").", locale),
+                    new MessageFormat("   {0}: {1, number, 0.##}.", locale),
+                    new MessageFormat("   {0}: {1, number, currency}.", locale),
+                    inZone(new MessageFormat("   {0}: {1, date, full}.", locale)),
+                    new MessageFormat("\"{0}\" ({1, number, integer}{2, choice, 0#|0< \u00B1 {2, number, integer}})", locale),
+                    new MessageFormat(String.format(QUANTILES_PATTERN, "0.##"), locale),
+                    new MessageFormat(String.format(QUANTILES_PATTERN, "currency"), locale)
+            );
+        }
 
-    private void save(final String path) {
-        try (final BufferedWriter outputStream = Files.newBufferedWriter(Path.of(path))) {
-            for (final String line : lines) {
-                outputStream.write(line);
-                outputStream.newLine();
+        // Dates are shown in zone, where they start
+        private static MessageFormat inZone(final MessageFormat format) {
+            for (final Format element : format.getFormats()) {
+                if (element instanceof DateFormat date) {
+                    date.setTimeZone(TimeZone.getTimeZone(DateMatcher.ZONE));
+                }
             }
-        } catch (final IOException e) {
-            throw new UncheckedIOException(e);
+            return format;
+        }
+
+        Templates copy() {
+            return new Templates(
+                    (MessageFormat) file.clone(),
+                    (MessageFormat) numberOf.clone(),
+                    (MessageFormat) numberOfWithUnique.clone(),
+                    (MessageFormat) keyValue.clone(),
+                    (MessageFormat) keyLength.clone(),
+                    (MessageFormat) number.clone(),
+                    (MessageFormat) currency.clone(),
+                    (MessageFormat) date.clone(),
+                    (MessageFormat) frequency.clone(),
+                    (MessageFormat) quantiles.clone(),
+                    (MessageFormat) currencyQuantiles.clone()
+            );
         }
     }
 }
@@ -0,0 +1,207 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of statistics of files, addressed by their content.
+ * Key of statistics is fast non-cryptographic {@link ContentHash hash} of file content, input locale, charset,
+ * chosen statistics, way of counting unique values and {@link #VERSION}.
+ * Broken entries are removed and statistics are computed again.
+ * Report is written from cached statistics, so it isn't a part of the key.
+ * <p>
+ * Entries are written atomically and the least recently used ones are removed,
+ * when total size exceeds the limit, so one directory may be shared by concurrent analyses.
+ */
+public class ResultCache {
+    /**
+     * Version of parsing and of saved statistics. Entries of other versions are never used.
+     */
+    public static final int VERSION = 8;
+    public static final long DEFAULT_MAX_SIZE = 1L << 30;
+    private static final int MAGIC = 0x54585343;
+    private static final String SUFFIX = ".stats";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final long maxSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates cache in directory, creating the directory, if it doesn't exist.
+     * @param directory directory of cache entries.
+     * @param maxSize maximal total size of entries in bytes.
+     */
+    public ResultCache(final Path directory, final long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size should be positive: " + maxSize);
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ResultCache(final Path directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Gets cached statistics of file or computes and caches them.
+     * @param context settings of analysis.
+     * @param input path to input file.
+     * @param parser computes statistics of the file.
+     * @return statistics of the file.
+     */
+    public ParseResult get(final AnalysisContext context, final Path input, final Supplier<ParseResult> parser) {
+        final Path entry;
+        try {
+            entry = directory.resolve(key(context, input) + SUFFIX);
+        } catch (final IOException e) {
+            System.out.println("Can't read data from input file, " + input);
+            throw new UncheckedIOException(e);
+        }
+        final ParseResult cached = read(context, entry);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        final ParseResult result = parser.get();
+        write(entry, result);
+        evict();
+        return result;
+    }
+
+    private static String key(final AnalysisContext context, final Path input) throws IOException {
+        final ContentHash hash = new ContentHash();
+        final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        try (final FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            while (channel.read(bytes) != -1) {
+                hash.update(bytes.flip());
+                bytes.clear();
+            }
+        }
+        hash.update(("\0" + context.inputLocale().toLanguageTag() + "\0" + Objects.toString(context.charset(), "auto")
+                + "\0" + context.statistics().key() + "\0" + context.counting() + "\0" + VERSION)
+                .getBytes(StandardCharsets.UTF_8));
+        return hash.finish();
+    }
+
+    // Returns null, if there is no readable entry, broken entry is removed
+    private static ParseResult read(final AnalysisContext context, final Path entry) {
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            final ParseResult result = new TextParser(context.inputLocale(), context.counting(), context.statistics()).getResult();
+            result.readState(in);
+            touch(entry);
+            return result;
+        } catch (final NoSuchFileException e) {
+            return null;
+        } catch (final IOException | IllegalArgumentException | IllegalStateException e) {
+            System.out.println("Can't read cache entry " + entry + ": " + e);
+            try {
+                Files.deleteIfExists(entry);
+            } catch (final IOException ignored) {
+                // Entry is replaced, when statistics are computed again
+            }
+            return null;
+        }
+    }
+
+    // Modification time of entry is the time of the last use
+    private static void touch(final Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+        } catch (final IOException ignored) {
+            // Entry was evicted by concurrent analysis or cache is read-only, entry is valid anyway
+        }
+    }
+
+    private void write(final Path entry, final ParseResult result) {
+        try {
+            final Path temporary = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+            try {
+                try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    result.writeState(out);
+                }
+                try {
+                    Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (final IOException e) {
+            // Result is computed anyway, so cache failure isn't fatal
+            System.out.println("Can't write cache entry " + entry + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void evict() {
+        final List<Entry> entries = new ArrayList<>();
+        long size = 0;
+        try (final Stream<Path> paths = Files.list(directory)) {
+            for (final Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().endsWith(SUFFIX)) {
+                    try {
+                        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                        entries.add(new Entry(path, attributes.size(), attributes.lastModifiedTime()));
+                        size += attributes.size();
+                    } catch (final NoSuchFileException ignored) {
+                        // Entry was evicted by concurrent analysis
+                    }
+                }
+            }
+            entries.sort(Comparator.comparing(Entry::lastUsed));
+            for (int i = 0; size > maxSize && i < entries.size(); i++) {
+                if (Files.deleteIfExists(entries.get(i).path())) {
+                    evictions.incrementAndGet();
+                }
+                size -= entries.get(i).size();
+            }
+        } catch (final IOException e) {
+            System.out.println("Can't evict cache entries: " + e.getMessage());
+        }
+    }
+
+    public CacheMetrics getMetrics() {
+        return new CacheMetrics(hits.get(), misses.get(), evictions.get());
+    }
+
+    private record Entry(Path path, long size, FileTime lastUsed) {
+    }
+}
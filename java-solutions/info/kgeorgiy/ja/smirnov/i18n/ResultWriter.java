@@ -0,0 +1,18 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes statistics of analyzed file in some format.
+ */
+public interface ResultWriter {
+    /**
+     * Writes statistics to stream. Stream is flushed, but isn't closed.
+     * @param result statistics to write.
+     * @param inputFileName name of analyzed file.
+     * @param out destination.
+     * @throws IOException if statistics can't be written.
+     */
+    void write(ParseResult result, String inputFileName, OutputStream out) throws IOException;
+}
@@ -0,0 +1,12 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+/**
+ * Built-in statistics of text. Parser of a category, that isn't chosen, is never invoked.
+ */
+public enum StatisticCategory {
+    SENTENCES,
+    WORDS,
+    NUMBERS,
+    AMOUNTS,
+    DATES
+}
@@ -0,0 +1,78 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Statistics, that are collected: built-in categories and custom statistics.
+ * @param categories chosen built-in categories.
+ * @param providers providers of custom statistics, in order of report.
+ */
+public record StatisticSelection(Set<StatisticCategory> categories, List<StatisticsProvider> providers) {
+    private static final List<StatisticsProvider> REGISTERED = ServiceLoader.load(StatisticsProvider.class).stream()
+            .map(ServiceLoader.Provider::get)
+            .toList();
+
+    public StatisticSelection {
+        categories = Collections.unmodifiableSet(categories.isEmpty()
+                ? EnumSet.noneOf(StatisticCategory.class)
+                : EnumSet.copyOf(categories));
+        providers = List.copyOf(providers);
+        final Set<String> names = new HashSet<>();
+        for (final StatisticsProvider provider : providers) {
+            if (!names.add(provider.name())) {
+                throw new IllegalArgumentException("Duplicate statistics: " + provider.name());
+            }
+        }
+    }
+
+    /**
+     * Gets all categories and all registered custom statistics.
+     */
+    public static StatisticSelection all() {
+        return new StatisticSelection(EnumSet.allOf(StatisticCategory.class), REGISTERED);
+    }
+
+    /**
+     * Parses comma-separated names of categories, case-insensitive, and of registered custom statistics.
+     * @param names names of statistics or {@code all}.
+     * @throws IllegalArgumentException if there is no statistics with some name.
+     */
+    public static StatisticSelection parse(final String names) {
+        if (names.trim().equalsIgnoreCase("all")) {
+            return all();
+        }
+        final Set<StatisticCategory> categories = EnumSet.noneOf(StatisticCategory.class);
+        final Set<String> custom = new HashSet<>();
+        for (final String name : names.split(",")) {
+            final String trimmed = name.trim();
+            if (REGISTERED.stream().anyMatch(provider -> provider.name().equals(trimmed))) {
+                custom.add(trimmed);
+            } else {
+                categories.add(StatisticCategory.valueOf(trimmed.toUpperCase(Locale.ROOT)));
+            }
+        }
+        return new StatisticSelection(
+                categories,
+                REGISTERED.stream().filter(provider -> custom.contains(provider.name())).toList()
+        );
+    }
+
+    public boolean contains(final StatisticCategory category) {
+        return categories.contains(category);
+    }
+
+    /**
+     * Gets names of chosen statistics, that identify kept state of statistics.
+     */
+    String key() {
+        return categories.stream().map(Enum::name).collect(Collectors.joining(","))
+                + ";" + providers.stream().map(StatisticsProvider::name).collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,28 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
+
+import java.util.Locale;
+
+/**
+ * Service of custom statistics, that is found by {@link java.util.ServiceLoader}.
+ * Its statistics are collected along with built-in ones and written after them.
+ */
+public interface StatisticsProvider {
+    /**
+     * Gets unique name of statistics, that chooses them and names them in machine-readable output.
+     */
+    String name();
+
+    /**
+     * Gets header of statistics in report of the given locale.
+     */
+    String title(Locale locale);
+
+    /**
+     * Creates empty statistics.
+     * @param locale locale of text.
+     * @param counting way of counting unique values.
+     */
+    TokenStatistics<?> create(Locale locale, UniqueCounting counting);
+}
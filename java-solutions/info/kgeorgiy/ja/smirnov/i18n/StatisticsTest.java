@@ -1,18 +1,46 @@
 package info.kgeorgiy.ja.smirnov.i18n;
 
+import info.kgeorgiy.ja.smirnov.i18n.statistics.CollationKeyComparator;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.DateStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.DoubleStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.Frequency;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.IntStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.Statistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.StringStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.SummableStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.*;
 import org.junit.runners.MethodSorters;
 
 import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.text.Collator;
 import java.text.DateFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
 import java.text.NumberFormat;
 import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class StatisticsTest {
@@ -347,6 +375,1209 @@ public class StatisticsTest {
     }
 
 
+    private static String generateText(final int sentences, final String... words) {
+        final Random random = new Random(sentences);
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            final int length = 1 + random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                builder.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            builder.append(random.nextBoolean() ? ". " : "!" + System.lineSeparator());
+        }
+        return builder.toString();
+    }
+
+    private static void assertStringStatisticsEquals(final StringStatistics expected, final StringStatistics actual) {
+        Assert.assertEquals(expected.getCount(), actual.getCount());
+        Assert.assertEquals(expected.getUniqueCount(), actual.getUniqueCount());
+        Assert.assertEquals(expected.getMin(), actual.getMin());
+        Assert.assertEquals(expected.getMax(), actual.getMax());
+        Assert.assertEquals(expected.getMinLengthString(), actual.getMinLengthString());
+        Assert.assertEquals(expected.getMaxLengthString(), actual.getMaxLengthString());
+        Assert.assertEquals(expected.getAverageLength(), actual.getAverageLength());
+    }
+
+    private static void assertSummableEquals(final SummableStatistics<?, ?, ?> expected, final SummableStatistics<?, ?, ?> actual) {
+        Assert.assertEquals(expected.getCount(), actual.getCount());
+        Assert.assertEquals(expected.getUniqueCount(), actual.getUniqueCount());
+        Assert.assertEquals(expected.getMin(), actual.getMin());
+        Assert.assertEquals(expected.getMax(), actual.getMax());
+        Assert.assertEquals(expected.getAverage(), actual.getAverage());
+    }
+
+    private static void assertResultEquals(final ParseResult expected, final ParseResult actual) {
+        assertStringStatisticsEquals(expected.sentenceStatistics(), actual.sentenceStatistics());
+        assertStringStatisticsEquals(expected.wordStatistics(), actual.wordStatistics());
+        assertSummableEquals(expected.numberStatistics(), actual.numberStatistics());
+        assertSummableEquals(expected.currencyStatistics(), actual.currencyStatistics());
+        assertSummableEquals(expected.dateStatics(), actual.dateStatics());
+    }
+
+    @Test
+    public void test6_chunks() throws IOException {
+        Locale.setDefault(ENGLISH_LOCALE);
+        final String text = generateText(5000, "word", "Another", "Mr.", "7", "$1,200.50", "Jan 5, 2020", "3.14", "-");
+        final Path inputPath = testDirectoryPath.resolve("test6_chunks.input");
+        Files.writeString(inputPath, text);
+        final ParseResult expected = new TextParser(text).parse();
+        for (final int chunkSize : new int[]{64, 1000, ChunkedTextReader.DEFAULT_CHUNK_SIZE}) {
+            final TextParser parser = new TextParser();
+            new ChunkedTextReader(chunkSize).read(inputPath, parser::parse);
+            assertResultEquals(expected, parser.getResult());
+        }
+    }
+
+    @Test
+    public void test7_parallel() throws IOException {
+        Locale.setDefault(RUSSIAN_LOCALE);
+        final String text = generateText(5000, "слово", "Другое", "т.е.", "7", "0,1", "1 200,5", "Ёж", "-", "12.01.2020");
+        final Path inputPath = testDirectoryPath.resolve("test7_parallel.input");
+        Files.writeString(inputPath, text);
+        final ParseResult expected = new TextParser(text).parse();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final int chunkSize : new int[]{64, 1000}) {
+                final ParallelTextParser parser = new ParallelTextParser(pool);
+                new ChunkedTextReader(chunkSize).read(inputPath, parser);
+                assertResultEquals(expected, parser.getResult());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void test8_approximateUniques() {
+        final int parts = 4;
+        final int unique = 200_000;
+        final List<StringStatistics> statistics = new ArrayList<>();
+        for (int i = 0; i < parts; i++) {
+            statistics.add(new StringStatistics(Comparator.naturalOrder(), UniqueCounting.APPROXIMATE));
+        }
+        for (int i = 0; i < unique * 2; i++) {
+            statistics.get(i % parts).accept("word" + i % unique);
+        }
+        final StringStatistics merged = statistics.get(0);
+        for (int i = 1; i < parts; i++) {
+            merged.merge(statistics.get(i));
+        }
+        Assert.assertEquals(unique * 2, merged.getCount());
+        Assert.assertEquals(1.0, (double) merged.getUniqueCount() / unique, 0.025);
+
+        final StringStatistics small = new StringStatistics(Comparator.naturalOrder(), UniqueCounting.APPROXIMATE);
+        for (int i = 0; i < 1000; i++) {
+            small.accept("word" + i % 100);
+        }
+        Assert.assertEquals(100, small.getUniqueCount(), 2);
+    }
+
+    @Test
+    public void test9_dateSumOverflow() {
+        final DateStatistics first = new DateStatistics();
+        final DateStatistics second = new DateStatistics();
+        final long late = Long.MAX_VALUE / 3;
+        final long early = -Long.MAX_VALUE / 3;
+        for (int i = 0; i < 10; i++) {
+            first.accept(new Date(late));
+            second.accept(new Date(late + 10));
+            second.accept(new Date(early));
+        }
+        first.merge(second);
+        Assert.assertEquals(30, first.getCount());
+        Assert.assertEquals(3, first.getUniqueCount());
+        Assert.assertEquals(new Date(early), first.getMin());
+        Assert.assertEquals(new Date(late + 10), first.getMax());
+        Assert.assertEquals(new Date((late + late + 10 + early) / 3), first.getAverage());
+    }
+
+    @Test
+    public void test10_collationKeys() {
+        final String[] words = {"word", "Word", "wörd", "слово", "Слово", "ёж", "еж", "a", "A", "ä", "", "-", "co-op", "coop", "1"};
+        for (final Locale locale : List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE, Locale.GERMANY)) {
+            final Collator collator = Collator.getInstance(locale);
+            final Comparator<String> comparator = new CollationKeyComparator(Collator.getInstance(locale), 4);
+            for (final String first : words) {
+                for (final String second : words) {
+                    Assert.assertEquals(
+                            Integer.signum(collator.compare(first, second)),
+                            Integer.signum(comparator.compare(first, second))
+                    );
+                }
+            }
+        }
+    }
+
+
+    private static void checkClassified(
+            final String text,
+            final Format format,
+            final java.util.function.Predicate<Character> classifier,
+            final Locale locale
+    ) {
+        final ParsePosition position = new ParsePosition(0);
+        for (int i = 0; i < text.length(); i++) {
+            // Tokens are trimmed, so they never start with whitespace
+            if (text.charAt(i) <= ' ') {
+                continue;
+            }
+            position.setIndex(i);
+            format.parseObject(text, position);
+            if (position.getIndex() != i) {
+                Assert.assertTrue(
+                        "Token \"" + text.substring(i, position.getIndex()) + "\" rejected in " + locale,
+                        classifier.test(text.charAt(i))
+                );
+            }
+        }
+    }
+
+    @Test
+    public void test11_tokenClassifier() {
+        final Random random = new Random(11);
+        final Locale[] locales = Locale.getAvailableLocales();
+        final List<Locale> checked = new ArrayList<>(List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE, Locale.GERMANY, Locale.JAPAN));
+        for (int i = 0; i < 40; i++) {
+            checked.add(locales[random.nextInt(locales.length)]);
+        }
+        for (final Locale locale : checked) {
+            final NumberFormat numberFormat = NumberFormat.getNumberInstance(locale);
+            final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(locale);
+            final TokenClassifier classifier = new TokenClassifier(numberFormat, currencyFormat);
+            final StringBuilder text = new StringBuilder("word Word NaN ∞ -. , (1) +2 ");
+            for (int i = 0; i < 20; i++) {
+                final double value = (random.nextDouble() - 0.3) * Math.pow(10, random.nextInt(8));
+                final Date date = new Date(random.nextLong() % 4_000_000_000_000L);
+                text.append(numberFormat.format(value)).append(' ')
+                        .append(currencyFormat.format(value)).append(' ');
+                for (final int style : new int[]{DateFormat.SHORT, DateFormat.MEDIUM, DateFormat.LONG, DateFormat.FULL}) {
+                    text.append(DateFormat.getDateInstance(style, locale).format(date)).append(' ');
+                }
+            }
+            checkClassified(text.toString(), numberFormat, classifier::mayBeNumber, locale);
+            checkClassified(text.toString(), currencyFormat, classifier::mayBeCurrency, locale);
+        }
+    }
+
+
+    private static void checkLexer(final String text, final NumberFormat format, final Locale locale) {
+        final NumberLexer lexer = new NumberLexer(format);
+        final ParsePosition expectedPosition = new ParsePosition(0);
+        final ParsePosition actualPosition = new ParsePosition(0);
+        for (int i = 0; i < text.length(); i++) {
+            expectedPosition.setIndex(i);
+            actualPosition.setIndex(i);
+            final Number expected = format.parse(text, expectedPosition);
+            final double actual = lexer.parse(text, actualPosition);
+            final String message = "\"" + text.substring(i, Math.min(text.length(), i + 30)) + "\" in " + locale;
+            Assert.assertEquals(message, expectedPosition.getIndex(), actualPosition.getIndex());
+            if (expected != null) {
+                Assert.assertEquals(message, 0, Double.compare(expected.doubleValue(), actual));
+            }
+        }
+    }
+
+    @Test
+    public void test12_numberLexer() {
+        final Random random = new Random(12);
+        final Locale[] locales = Locale.getAvailableLocales();
+        final List<Locale> checked = new ArrayList<>(List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE, Locale.GERMANY, Locale.FRANCE));
+        for (int i = 0; i < 40; i++) {
+            checked.add(locales[random.nextInt(locales.length)]);
+        }
+        for (final Locale locale : checked) {
+            final NumberFormat numberFormat = NumberFormat.getNumberInstance(locale);
+            final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance(locale);
+            final DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            final String grouping = String.valueOf(symbols.getGroupingSeparator());
+            final String decimal = String.valueOf(symbols.getDecimalSeparator());
+            final String exponent = symbols.getExponentSeparator();
+            final String minus = String.valueOf(symbols.getMinusSign());
+            final StringBuilder text = new StringBuilder(String.join(" ",
+                    symbols.getNaN(), symbols.getInfinity(), minus + symbols.getInfinity(),
+                    "0", minus + "0", "00012" + decimal + "5000", "0" + decimal + "000", decimal + "5", grouping + "5",
+                    "1" + grouping + grouping + "000", "1" + grouping, "1" + grouping + "234" + decimal + "5" + grouping + "6",
+                    "1" + decimal + "2" + decimal + "3", "12345678901234567890123", "9223372036854775807",
+                    minus + "9223372036854775808", "9223372036854775808", "0" + decimal + "1234567890123456789012",
+                    "1" + exponent + "5", "1" + exponent + minus + "5", "1" + exponent, "1" + exponent + minus,
+                    "2" + exponent + "9223372036854775807", "2" + exponent + minus + "9223372036854775808",
+                    "2" + exponent + "99999999999999999999", "7" + exponent + "400", "7" + exponent + minus + "400",
+                    "١٢٣", "１２"
+            ));
+            for (int i = 0; i < 30; i++) {
+                final double value = (random.nextDouble() - 0.3) * Math.pow(10, random.nextInt(40) - 20);
+                text.append(' ').append(numberFormat.format(value))
+                        .append(' ').append(currencyFormat.format(value))
+                        .append(' ').append(value);
+            }
+            checkLexer(text.toString(), numberFormat, locale);
+            checkLexer(text.toString(), currencyFormat, locale);
+        }
+    }
+
+
+    @Test
+    public void test13_dateMatcher() {
+        final Random random = new Random(13);
+        final Locale[] locales = Locale.getAvailableLocales();
+        final List<Locale> checked = new ArrayList<>(List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE, Locale.GERMANY, Locale.JAPAN));
+        for (int i = 0; i < 40; i++) {
+            checked.add(locales[random.nextInt(locales.length)]);
+        }
+        for (final Locale locale : checked) {
+            final DateMatcher matcher = new DateMatcher(locale, ZoneOffset.UTC);
+            for (int i = 0; i < 20; i++) {
+                // Two-digit years are ambiguous out of this century
+                final LocalDate date = LocalDate.of(2000 + random.nextInt(100), 1 + random.nextInt(12), 1 + random.nextInt(28));
+                final long millis = date.toEpochDay() * 24 * 60 * 60 * 1000;
+                for (final FormatStyle style : FormatStyle.values()) {
+                    final String text = DateTimeFormatter.ofLocalizedDate(style).withLocale(locale).format(date);
+                    final ParsePosition position = new ParsePosition(0);
+                    final long actual = matcher.match(text, position);
+                    Assert.assertEquals(text + " in " + locale, text.length(), position.getIndex());
+                    Assert.assertEquals(text + " in " + locale, millis, actual);
+                }
+            }
+        }
+
+        final DateFormat format = DateFormat.getDateInstance(DateFormat.FULL, ENGLISH_LOCALE);
+        // Parts of full date are dates of shorter styles
+        final String text = "Full date " + format.format(new Date()) + " is one date.";
+        Locale.setDefault(ENGLISH_LOCALE);
+        Assert.assertEquals(1, new TextParser(text).parse().dateStatics().getCount());
+    }
+
+
+    @Test
+    public void test14_concurrentAnalyses() throws IOException, InterruptedException {
+        final Date date = new Date();
+        final String text = generateText(500,
+                "word", "слово", "1,5", "1.5", "$12.50", "12,50 ₽", "100",
+                DateFormat.getDateInstance(DateFormat.LONG, ENGLISH_LOCALE).format(date),
+                DateFormat.getDateInstance(DateFormat.MEDIUM, RUSSIAN_LOCALE).format(date));
+        final Path input = testDirectoryPath.resolve("test14_concurrentAnalyses.input");
+        Files.writeString(input, text);
+        final List<AnalysisContext> contexts = new ArrayList<>();
+        for (final Locale inputLocale : List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE)) {
+            for (final Locale outputLocale : List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE)) {
+                contexts.add(new AnalysisContext(inputLocale, outputLocale));
+            }
+        }
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < contexts.size(); i++) {
+            final Path output = testDirectoryPath.resolve("test14_concurrentAnalyses.expected" + i);
+            TextStatistics.getStatistics(contexts.get(i), input.toString(), output.toString());
+            expected.add(Files.readString(output));
+        }
+
+        final Locale defaultLocale = Locale.getDefault();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < contexts.size() * 4; i++) {
+            final AnalysisContext context = contexts.get(i % contexts.size());
+            final Path output = testDirectoryPath.resolve("test14_concurrentAnalyses.output" + i);
+            threads.add(Thread.startVirtualThread(() ->
+                    TextStatistics.getStatistics(context, input.toString(), output.toString())));
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < threads.size(); i++) {
+            final Path output = testDirectoryPath.resolve("test14_concurrentAnalyses.output" + i);
+            Assert.assertEquals(expected.get(i % contexts.size()), Files.readString(output));
+        }
+        Assert.assertEquals(defaultLocale, Locale.getDefault());
+    }
+
+
+    @Test
+    public void test15_batch() throws IOException {
+        final Path input = Files.createDirectories(testDirectoryPath.resolve("test15_batch.input"));
+        final StringBuilder all = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            // Every file ends with a paragraph, so concatenation doesn't join sentences
+            final String text = generateText(100 + i, "word", "Another", "Mr.", "7", "$1,200.50", "Jan 5, 2020", "3.14")
+                    + "End!" + System.lineSeparator();
+            Files.writeString(input.resolve("file" + i + ".txt"), text);
+            all.append(text);
+        }
+        Files.writeString(input.resolve("ignored.md"), "Ignored 1.");
+        final Path allPath = testDirectoryPath.resolve("test15_batch.all");
+        Files.writeString(allPath, all);
+
+        final AnalysisContext context = new AnalysisContext(ENGLISH_LOCALE, RUSSIAN_LOCALE);
+        final Path output = testDirectoryPath.resolve("test15_batch.output");
+        BatchTextStatistics.getStatistics(context, input + File.separator + "*.txt", output, 2);
+
+        final Path expected = testDirectoryPath.resolve("test15_batch.expected");
+        for (int i = 0; i < 5; i++) {
+            final Path file = input.resolve("file" + i + ".txt");
+            TextStatistics.getStatistics(context, file.toString(), expected.toString());
+            Assert.assertEquals(
+                    Files.readString(expected),
+                    Files.readString(output.resolve(BatchTextStatistics.REPORTS_DIRECTORY_NAME)
+                            .resolve(file.getFileName() + OutputFormat.TEXT.getExtension()))
+            );
+        }
+        Assert.assertFalse(Files.exists(output.resolve(BatchTextStatistics.REPORTS_DIRECTORY_NAME)
+                .resolve("ignored.md" + OutputFormat.TEXT.getExtension())));
+
+        // Summary is the same as of concatenated files, except for the name of input
+        TextStatistics.getStatistics(context, allPath.toString(), expected.toString());
+        final List<String> summary = Files.readAllLines(output.resolve(BatchTextStatistics.SUMMARY_FILE_NAME + OutputFormat.TEXT.getExtension()));
+        final List<String> expectedSummary = Files.readAllLines(expected);
+        Assert.assertEquals(expectedSummary.subList(1, expectedSummary.size()), summary.subList(1, summary.size()));
+    }
+
+
+    @Test
+    public void test16_localeCache() {
+        final List<Locale> created = new ArrayList<>();
+        final LocaleCache<StringBuilder> cache = new LocaleCache<>(2, locale -> {
+            created.add(locale);
+            return new StringBuilder(locale.toString());
+        }, StringBuilder::new);
+        final StringBuilder first = cache.get(ENGLISH_LOCALE);
+        final StringBuilder second = cache.get(ENGLISH_LOCALE);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(ENGLISH_LOCALE.toString(), second.toString());
+        cache.get(RUSSIAN_LOCALE);
+        cache.get(Locale.GERMANY);
+        cache.get(RUSSIAN_LOCALE);
+        cache.get(ENGLISH_LOCALE);
+        Assert.assertEquals(List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE, Locale.GERMANY, ENGLISH_LOCALE), created);
+        Assert.assertEquals(new CacheMetrics(2, 4, 2), cache.getMetrics());
+
+        final CacheMetrics before = LocaleResources.getParsingMetrics();
+        final ParseResult expected = new TextParser("Text 1.5 and Jan 5, 2020.", ENGLISH_LOCALE, UniqueCounting.EXACT).parse();
+        final ParseResult actual = new TextParser("Text 1.5 and Jan 5, 2020.", ENGLISH_LOCALE, UniqueCounting.EXACT).parse();
+        assertResultEquals(expected, actual);
+        Assert.assertEquals(1, actual.dateStatics().getCount());
+        Assert.assertTrue(LocaleResources.getParsingMetrics().hits() > before.hits());
+    }
+
+
+    @Test
+    public void test17_streamingReport() throws IOException {
+        final ParseResult result = new TextParser("Text 1.5 and Jan 5, 2020. $3 each.", ENGLISH_LOCALE, UniqueCounting.EXACT).parse();
+        final Path output = testDirectoryPath.resolve("test17_streamingReport.output");
+        for (final Locale locale : List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE)) {
+            new ParseResultHandler(locale).save(result, "input", output.toString());
+            final StringWriter writer = new StringWriter();
+            new ParseResultHandler(locale).write(result, "input", writer);
+            Assert.assertEquals(Files.readString(output), writer.toString());
+        }
+    }
+
+    @Test
+    public void test18_machineReadableOutput() throws IOException {
+        final ParseResult result = new TextParser("Text 1.5 and 2. \"Quoted\" $3 each.", ENGLISH_LOCALE, UniqueCounting.EXACT).parse();
+        final ByteArrayOutputStream english = new ByteArrayOutputStream();
+        OutputFormat.JSON.writer(ENGLISH_LOCALE).write(result, "in\\put", english);
+        final ByteArrayOutputStream russian = new ByteArrayOutputStream();
+        OutputFormat.JSON.writer(RUSSIAN_LOCALE).write(result, "in\\put", russian);
+        final String json = english.toString(StandardCharsets.UTF_8);
+        Assert.assertEquals(json, russian.toString(StandardCharsets.UTF_8));
+        Assert.assertTrue(json.startsWith("{\"file\":\"in\\\\put\",\"sentences\":{\"count\":2,\"unique\":2,"));
+        Assert.assertTrue(json.contains("\"numbers\":{\"count\":2,\"unique\":2,\"min\":1.5,\"max\":2.0,\"sum\":3.5,\"average\":1.75,\"median\":1.75,\"p90\":1.95,\"p99\":1.995}"));
+        Assert.assertTrue(json.contains("\"dates\":{\"count\":0,\"unique\":0,\"min\":null,"));
+
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        OutputFormat.BINARY.writer(ENGLISH_LOCALE).write(result, "input", binary);
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(binary.toByteArray()));
+        Assert.assertEquals(BinaryResultWriter.MAGIC, in.readInt());
+        Assert.assertEquals(BinaryResultWriter.VERSION, in.readByte());
+        Assert.assertEquals(5, in.readByte());
+        Assert.assertEquals("input", new String(in.readNBytes(5), StandardCharsets.UTF_8));
+        Assert.assertEquals(2, in.readByte());
+        Assert.assertEquals(2, in.readByte());
+    }
+
+    @Test
+    public void test19_incrementalAnalysis() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append("Строка ").append(i).append(" от 5 мая 2021 г. стоит ").append(i % 7).append(",5 ₽. ");
+            text.append(i % 3 == 0 ? "Ещё одна фраза.\n" : "Hello world ");
+        }
+        final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        final Path input = testDirectoryPath.resolve("test19_incrementalAnalysis.input");
+        final Path snapshot = testDirectoryPath.resolve("test19_incrementalAnalysis.snapshot");
+        final Path incremental = testDirectoryPath.resolve("test19_incrementalAnalysis.incremental");
+        final Path full = testDirectoryPath.resolve("test19_incrementalAnalysis.full");
+        Files.write(input, new byte[0]);
+        for (final UniqueCounting counting : UniqueCounting.values()) {
+            final AnalysisContext context = new AnalysisContext(RUSSIAN_LOCALE, ENGLISH_LOCALE, 1, counting);
+            Files.deleteIfExists(snapshot);
+            Files.write(input, new byte[0]);
+            // Pieces end in the middle of words, sentences and characters
+            for (int start = 0, step = 1; start < bytes.length; start += step, step = step * 3 + 1) {
+                final int end = Math.min(start + step, bytes.length);
+                Files.write(input, Arrays.copyOfRange(bytes, start, end), StandardOpenOption.APPEND);
+                TextStatistics.getStatistics(context, input.toString(), incremental.toString(), snapshot.toString());
+                if (end == bytes.length || new String(bytes, 0, end, StandardCharsets.UTF_8).indexOf('�') < 0) {
+                    TextStatistics.getStatistics(context, input.toString(), full.toString());
+                    Assert.assertEquals(Files.readString(full), Files.readString(incremental));
+                }
+            }
+            // Snapshot of other file isn't used
+            Files.writeString(input, "Other text.");
+            TextStatistics.getStatistics(context, input.toString(), incremental.toString(), snapshot.toString());
+            TextStatistics.getStatistics(context, input.toString(), full.toString());
+            Assert.assertEquals(Files.readString(full), Files.readString(incremental));
+        }
+    }
+
+    @Test
+    public void test20_resultCache() throws IOException {
+        final Path input = testDirectoryPath.resolve("test20_resultCache.input");
+        final Path cached = testDirectoryPath.resolve("test20_resultCache.cached");
+        final Path parsed = testDirectoryPath.resolve("test20_resultCache.parsed");
+        final Path directory = testDirectoryPath.resolve("test20_resultCache.cache");
+        Files.writeString(input, "Hello, world! It costs $3.50 since Jan 5, 2020. Hello again.");
+        final ResultCache cache = new ResultCache(directory);
+        for (final Locale locale : List.of(ENGLISH_LOCALE, RUSSIAN_LOCALE)) {
+            final AnalysisContext context = new AnalysisContext(ENGLISH_LOCALE, locale);
+            TextStatistics.getStatistics(context, input.toString(), cached.toString(), cache);
+            TextStatistics.getStatistics(context, input.toString(), parsed.toString());
+            Assert.assertEquals(Files.readString(parsed), Files.readString(cached));
+        }
+        // Report locale isn't a part of the key
+        Assert.assertEquals(new CacheMetrics(1, 1, 0), cache.getMetrics());
+
+        Files.writeString(input, "Other text.");
+        TextStatistics.getStatistics(new AnalysisContext(ENGLISH_LOCALE, ENGLISH_LOCALE), input.toString(), cached.toString(), cache);
+        Assert.assertEquals(new CacheMetrics(1, 2, 0), cache.getMetrics());
+
+        // Broken entry is parsed again
+        try (final DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (final Path entry : entries) {
+                Files.write(entry, new byte[]{1, 2, 3});
+            }
+        }
+        TextStatistics.getStatistics(new AnalysisContext(ENGLISH_LOCALE, ENGLISH_LOCALE), input.toString(), cached.toString(), cache);
+        Assert.assertEquals(new CacheMetrics(1, 3, 0), cache.getMetrics());
+
+        // Entry with valid header, but invalid statistics, is removed and parsed again
+        try (final DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (final Path entry : entries) {
+                final byte[] valid = Files.readAllBytes(entry);
+                if (valid.length < 2 * Integer.BYTES) {
+                    continue;
+                }
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final DataOutputStream out = new DataOutputStream(bytes);
+                out.write(valid, 0, 2 * Integer.BYTES);
+                out.writeLong(-1);
+                out.write(new byte[64]);
+                Files.write(entry, bytes.toByteArray());
+            }
+        }
+        TextStatistics.getStatistics(new AnalysisContext(ENGLISH_LOCALE, ENGLISH_LOCALE), input.toString(), parsed.toString(), cache);
+        Assert.assertEquals(new CacheMetrics(1, 4, 0), cache.getMetrics());
+        Assert.assertEquals(Files.readString(cached), Files.readString(parsed));
+        TextStatistics.getStatistics(new AnalysisContext(ENGLISH_LOCALE, ENGLISH_LOCALE), input.toString(), parsed.toString(), cache);
+        Assert.assertEquals(new CacheMetrics(2, 4, 0), cache.getMetrics());
+
+        final ResultCache small = new ResultCache(directory, 1);
+        TextStatistics.getStatistics(new AnalysisContext(RUSSIAN_LOCALE, ENGLISH_LOCALE), input.toString(), cached.toString(), small);
+        Assert.assertEquals(new CacheMetrics(0, 1, 3), small.getMetrics());
+        try (final DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            Assert.assertFalse(entries.iterator().hasNext());
+        }
+    }
+
+    @Test
+    public void test21_metricsAndEvents() throws IOException {
+        final String text = "Price is 1.5 or $3 now. Since Jan 5, 2020 there were 2 changes. Привет!";
+        final Path input = testDirectoryPath.resolve("test21_metricsAndEvents.input");
+        final Path output = testDirectoryPath.resolve("test21_metricsAndEvents.output");
+        final Path dump = testDirectoryPath.resolve("test21_metricsAndEvents.jfr");
+        Files.writeString(input, text);
+        final AnalysisMetrics metrics;
+        try (final Recording recording = new Recording()) {
+            for (final String event : List.of("ReadChunk", "ParseChunk", "Report", "Analysis")) {
+                recording.enable("info.kgeorgiy.ja.smirnov.i18n." + event);
+            }
+            recording.start();
+            metrics = TextStatistics.getStatistics(new AnalysisContext(ENGLISH_LOCALE, ENGLISH_LOCALE), input.toString(), output.toString());
+            recording.stop();
+            recording.dump(dump);
+        }
+        Assert.assertEquals(text.getBytes(StandardCharsets.UTF_8).length, metrics.getBytesRead());
+        Assert.assertEquals(text.length(), metrics.getCharsParsed());
+        Assert.assertEquals(3, metrics.getSentences());
+        Assert.assertEquals(4, metrics.getNumberMatches());
+        Assert.assertEquals(1, metrics.getCurrencyMatches());
+        Assert.assertEquals(1, metrics.getDateMatches());
+        Assert.assertTrue(metrics.getNumberAttempts() >= metrics.getNumberMatches());
+        Assert.assertTrue(metrics.getDateAttempts() > metrics.getDateMatches() && metrics.getTokens() > metrics.getDateAttempts());
+        // The first attempt is always timed
+        Assert.assertTrue(metrics.getNumberNanos() > 0 && metrics.getCurrencyNanos() > 0 && metrics.getDateNanos() > 0);
+        Assert.assertTrue(metrics.getNumberNanos() + metrics.getCurrencyNanos() + metrics.getDateNanos() <= metrics.getParseNanos() * AnalysisMetrics.SAMPLE_PERIOD);
+        Assert.assertTrue(metrics.summary().contains("Sentences: 3"));
+
+        final Map<String, Long> counts = new HashMap<>();
+        for (final RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            counts.merge(event.getEventType().getName(), 1L, Long::sum);
+            if (event.getEventType().getName().endsWith("ParseChunk")) {
+                Assert.assertEquals(3, event.getLong("sentences"));
+            }
+        }
+        Assert.assertEquals(Map.of(
+                "info.kgeorgiy.ja.smirnov.i18n.ReadChunk", 1L,
+                "info.kgeorgiy.ja.smirnov.i18n.ParseChunk", 1L,
+                "info.kgeorgiy.ja.smirnov.i18n.Report", 1L,
+                "info.kgeorgiy.ja.smirnov.i18n.Analysis", 1L
+        ), counts);
+    }
+
+
+    @Test
+    public void test22_mostFrequent() throws IOException {
+        Locale.setDefault(ENGLISH_LOCALE);
+        final String text = generateText(3000, "the", "cat", "sat", "on", "mat", "Ёж", "7", "-");
+        final Path input = testDirectoryPath.resolve("test22_mostFrequent.input");
+        Files.writeString(input, text);
+        final ParseResult expected = new TextParser(text).parse();
+        final List<Frequency<String>> words = expected.wordStatistics().getMostFrequent();
+        Assert.assertEquals(6, words.size());
+        for (int i = 0; i < words.size(); i++) {
+            Assert.assertEquals(0, words.get(i).error());
+            Assert.assertTrue(i == 0 || words.get(i - 1).count() >= words.get(i).count());
+        }
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ParallelTextParser parser = new ParallelTextParser(pool);
+            new ChunkedTextReader(100).read(input, parser);
+            Assert.assertEquals(words, parser.getResult().wordStatistics().getMostFrequent());
+        } finally {
+            pool.shutdown();
+        }
+
+        final List<String> output = withEnglishEnglishLocale("test22_mostFrequent", "A dog and a cat. The cat and the dog. A dog!");
+        Assert.assertTrue(output.contains("   Most frequent words: \"dog\" (3), \"A\" (2), \"and\" (2), \"cat\" (2)."));
+        Assert.assertTrue(output.contains("   Most frequent sentences: no value."));
+
+        // Frequent string is kept, when there are more different strings, than counters
+        final StringStatistics left = new StringStatistics(Collator.getInstance(ENGLISH_LOCALE));
+        final StringStatistics right = new StringStatistics(Collator.getInstance(ENGLISH_LOCALE));
+        for (int i = 0; i < 3 * StringStatistics.FREQUENCY_CAPACITY; i++) {
+            (i % 2 == 0 ? left : right).accept(i % 3 == 0 ? "frequent" : "rare" + i);
+        }
+        left.merge(right);
+        final Frequency<String> top = left.getMostFrequent().get(0);
+        Assert.assertEquals("frequent", top.value());
+        Assert.assertTrue(top.count() - top.error() <= StringStatistics.FREQUENCY_CAPACITY);
+        Assert.assertTrue(top.count() >= StringStatistics.FREQUENCY_CAPACITY);
+        Assert.assertTrue(top.error() <= 3);
+    }
+
+
+    @Test
+    public void test23_quantiles() {
+        final List<String> output = withEnglishEnglishLocale("test23_quantiles", "A bb ccc dddd. Bb.");
+        Assert.assertTrue(output.contains("   Median, 90th and 99th percentiles of word length: 2, 3.6, 3.96."));
+        Assert.assertTrue(output.contains("   Median, 90th and 99th percentiles of numbers: no value."));
+
+        // Skewed values, as amounts are, that are all different
+        final Random random = new Random(23);
+        final double[] values = new double[100_000];
+        final DoubleStatistics sequential = new DoubleStatistics();
+        final List<DoubleStatistics> parts = List.of(new DoubleStatistics(), new DoubleStatistics(), new DoubleStatistics());
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2);
+            sequential.accept(values[i]);
+            parts.get(i % parts.size()).accept(values[i]);
+        }
+        final DoubleStatistics merged = new DoubleStatistics();
+        parts.forEach(merged::merge);
+        Arrays.sort(values);
+        for (final double q : new double[]{0.5, 0.9, 0.99}) {
+            for (final DoubleStatistics statistics : List.of(sequential, merged)) {
+                final double estimate = statistics.getQuantile(q);
+                final int rank = Arrays.binarySearch(values, estimate);
+                final double actual = (double) (rank < 0 ? -rank - 1 : rank) / values.length;
+                Assert.assertEquals(q, actual, 0.01 * Math.sqrt(q * (1 - q)));
+            }
+        }
+        Assert.assertEquals(values[0], sequential.getQuantile(0), 0);
+        Assert.assertEquals(values[values.length - 1], merged.getQuantile(1), 0);
+    }
+
+
+    @Test
+    public void test24_fingerprintUniques() throws IOException {
+        // Small budget, so fingerprints are spilled and runs are merged
+        System.setProperty(UniqueCounting.MEMORY_BUDGET_PROPERTY, "4096");
+        try {
+            final Collator collator = Collator.getInstance(ENGLISH_LOCALE);
+            final StringStatistics all = new StringStatistics(collator, UniqueCounting.FINGERPRINT);
+            final StringStatistics left = new StringStatistics(collator, UniqueCounting.FINGERPRINT);
+            final StringStatistics right = new StringStatistics(collator, UniqueCounting.FINGERPRINT);
+            for (int i = 0; i < 30_000; i++) {
+                final String value = "value " + (i * 7919 % 11_000);
+                all.accept(value);
+                (i < 20_000 ? left : right).accept(value);
+            }
+            Assert.assertEquals(11_000, all.getUniqueCount());
+            Assert.assertEquals(11_000, left.getUniqueCount());
+            final long rightUnique = right.getUniqueCount();
+            left.merge(right);
+            Assert.assertEquals(11_000, left.getUniqueCount());
+            Assert.assertEquals(rightUnique, right.getUniqueCount());
+
+            final ByteArrayOutputStream state = new ByteArrayOutputStream();
+            all.writeState(new DataOutputStream(state));
+            final StringStatistics read = new StringStatistics(collator, UniqueCounting.FINGERPRINT);
+            read.readState(new DataInputStream(new ByteArrayInputStream(state.toByteArray())));
+            Assert.assertEquals(11_000, read.getUniqueCount());
+            read.accept("value 0");
+            read.accept("other");
+            Assert.assertEquals(11_001, read.getUniqueCount());
+
+            final String text = generateText(3000, "word", "Another", "Mr.", "7", "-");
+            final ParseResult expected = new TextParser(text, UniqueCounting.EXACT).parse();
+            final ParseResult actual = new TextParser(text, UniqueCounting.FINGERPRINT).parse();
+            assertResultEquals(expected, actual);
+        } finally {
+            System.clearProperty(UniqueCounting.MEMORY_BUDGET_PROPERTY);
+        }
+    }
+
+    @Test
+    public void test25_tokenViews() {
+        for (final UniqueCounting counting : UniqueCounting.values()) {
+            final Collator collator = Collator.getInstance(ENGLISH_LOCALE);
+            final StringStatistics strings = new StringStatistics(collator, counting);
+            final StringStatistics views = new StringStatistics(collator, counting);
+            final StringBuilder token = new StringBuilder();
+            final Random random = new Random(25);
+            for (int i = 0; i < 20_000; i++) {
+                final String value = "w".repeat(1 + random.nextInt(5)) + (char) ('a' + random.nextInt(26));
+                strings.accept(value);
+                // Token is changed after it is accepted, so statistics can't keep it
+                token.setLength(0);
+                views.accept(token.append(value));
+                token.setCharAt(0, 'X');
+            }
+            assertStringStatisticsEquals(strings, views);
+            Assert.assertEquals(strings.getMostFrequent(), views.getMostFrequent());
+            Assert.assertEquals(strings.getLengthQuantile(0.5), views.getLengthQuantile(0.5));
+        }
+    }
+
+    @Test
+    public void test26_charsetsAndGzip() throws IOException {
+        Locale.setDefault(RUSSIAN_LOCALE);
+        final String text = generateText(3000, "слово", "Другое", "т.е.", "7", "0,1", "Ёж", "-", "12.01.2020");
+        final ParseResult expected = new TextParser(text).parse();
+        final Map<String, byte[]> inputs = new LinkedHashMap<>();
+        inputs.put("utf8", text.getBytes(StandardCharsets.UTF_8));
+        inputs.put("utf8bom", ("\uFEFF" + text).getBytes(StandardCharsets.UTF_8));
+        inputs.put("utf16le", ("\uFEFF" + text).getBytes(StandardCharsets.UTF_16LE));
+        inputs.put("utf16be", text.getBytes(StandardCharsets.UTF_16BE));
+        inputs.put("cp1251", text.getBytes("windows-1251"));
+        final ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (final OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(inputs.get("utf16le"));
+        }
+        inputs.put("gzip", gzip.toByteArray());
+        for (final Map.Entry<String, byte[]> input : inputs.entrySet()) {
+            final Path inputPath = testDirectoryPath.resolve("test26_charsetsAndGzip." + input.getKey());
+            Files.write(inputPath, input.getValue());
+            for (final int chunkSize : new int[]{64, ChunkedTextReader.DEFAULT_CHUNK_SIZE}) {
+                final TextParser parser = new TextParser();
+                new ChunkedTextReader(RUSSIAN_LOCALE, chunkSize, null).read(inputPath, parser::parse);
+                assertResultEquals(expected, parser.getResult());
+            }
+        }
+
+        final Path cp1251 = testDirectoryPath.resolve("test26_charsetsAndGzip.cp1251");
+        final TextParser parser = new TextParser();
+        new ChunkedTextReader(RUSSIAN_LOCALE, 1000, Charset.forName("windows-1251")).read(cp1251, parser::parse);
+        assertResultEquals(expected, parser.getResult());
+        try {
+            new ChunkedTextReader(RUSSIAN_LOCALE, 1000, StandardCharsets.UTF_8).read(cp1251, new TextParser()::parse);
+            Assert.fail("Text in windows-1251 is read as UTF-8");
+        } catch (final CharacterCodingException ignored) {
+        }
+        try {
+            new ChunkedTextReader(RUSSIAN_LOCALE).readAppended(
+                    testDirectoryPath.resolve("test26_charsetsAndGzip.gzip"), ChunkedTextReader.Tail.EMPTY, new TextParser()::parse);
+            Assert.fail("Compressed file is read incrementally");
+        } catch (final IOException ignored) {
+        }
+    }
+
+    @Test
+    public void test27_statisticSelection() throws IOException {
+        Locale.setDefault(ENGLISH_LOCALE);
+        final String text = generateText(2000, "word", "Another", "Mr.", "7", "$1,200.50", "Jan 5, 2020", "3.14", "-");
+        final ParseResult all = new TextParser(text).parse();
+
+        final StatisticSelection selection = StatisticSelection.parse("words, Numbers");
+        Assert.assertEquals(EnumSet.of(StatisticCategory.WORDS, StatisticCategory.NUMBERS), selection.categories());
+        final TextParser parser = new TextParser(text, ENGLISH_LOCALE, UniqueCounting.EXACT, selection);
+        final ParseResult result = parser.parse();
+        assertStringStatisticsEquals(all.wordStatistics(), result.wordStatistics());
+        assertSummableEquals(all.numberStatistics(), result.numberStatistics());
+        Assert.assertEquals(0, result.sentenceStatistics().getCount());
+        Assert.assertEquals(0, result.currencyStatistics().getCount());
+        Assert.assertEquals(0, result.dateStatics().getCount());
+        Assert.assertEquals(0, parser.getMetrics().getSentences());
+        Assert.assertEquals(0, parser.getMetrics().getCurrencyAttempts());
+        Assert.assertEquals(0, parser.getMetrics().getDateAttempts());
+        final ByteArrayOutputStream report = new ByteArrayOutputStream();
+        new ParseResultHandler(ENGLISH_LOCALE).write(result, "input", report);
+        final String lines = report.toString(StandardCharsets.UTF_8);
+        Assert.assertTrue(lines.contains("Statistics by words") && lines.contains("Statistics by numbers"));
+        Assert.assertFalse(lines.contains("sentence") || lines.contains("amount") || lines.contains("date"));
+        try {
+            StatisticSelection.parse("words, letters");
+            Assert.fail("Unknown statistics are chosen");
+        } catch (final IllegalArgumentException ignored) {
+        }
+
+        // Custom statistics alone, that count capitalized words
+        final StatisticSelection custom = new StatisticSelection(
+                EnumSet.noneOf(StatisticCategory.class), List.of(new CapitalizedProvider()));
+        final TextParser customParser = new TextParser(text, ENGLISH_LOCALE, UniqueCounting.EXACT, custom);
+        final ParseResult customResult = customParser.parse();
+        final Statistics<?> capitalized = customResult.customStatistics().get(0);
+        final long expected = Arrays.stream(text.split("\\s+")).filter(word -> Character.isUpperCase(word.charAt(0))).count();
+        Assert.assertEquals(expected, capitalized.getCount());
+        Assert.assertEquals(3, capitalized.getUniqueCount());
+        Assert.assertEquals("Another", capitalized.getMin());
+        Assert.assertEquals("Mr", capitalized.getMax());
+        Assert.assertEquals(0, customParser.getMetrics().getNumberAttempts());
+        final Path input = testDirectoryPath.resolve("test27_statisticSelection.input");
+        Files.writeString(input, text);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ParallelTextParser parallel = new ParallelTextParser(pool, ENGLISH_LOCALE, UniqueCounting.EXACT, custom);
+            new ChunkedTextReader(1000).read(input, parallel);
+            final Statistics<?> merged = parallel.getResult().customStatistics().get(0);
+            Assert.assertEquals(expected, merged.getCount());
+            Assert.assertEquals(3, merged.getUniqueCount());
+        } finally {
+            pool.shutdown();
+        }
+        final ByteArrayOutputStream state = new ByteArrayOutputStream();
+        customResult.writeState(new DataOutputStream(state));
+        final ParseResult read = new TextParser(ENGLISH_LOCALE, UniqueCounting.EXACT, custom).getResult();
+        read.readState(new DataInputStream(new ByteArrayInputStream(state.toByteArray())));
+        report.reset();
+        new ParseResultHandler(ENGLISH_LOCALE).write(read, "input", report);
+        Assert.assertTrue(report.toString(StandardCharsets.UTF_8).contains(
+                "Capitalized words" + System.lineSeparator() + "   Number of values: "
+                        + NumberFormat.getIntegerInstance(ENGLISH_LOCALE).format(expected) + " (3 different)."));
+    }
+
+    private static final class CapitalizedProvider implements StatisticsProvider {
+        @Override
+        public String name() {
+            return "capitalized";
+        }
+
+        @Override
+        public String title(final Locale locale) {
+            return "Capitalized words";
+        }
+
+        @Override
+        public TokenStatistics<?> create(final Locale locale, final UniqueCounting counting) {
+            return new Capitalized();
+        }
+    }
+
+    private static final class Capitalized implements TokenStatistics<String> {
+        private final TreeSet<String> values = new TreeSet<>();
+        private long count;
+
+        @Override
+        public void acceptWord(final CharSequence word) {
+            if (Character.isUpperCase(word.charAt(0))) {
+                count++;
+                values.add(word.toString());
+            }
+        }
+
+        @Override
+        public void merge(final TokenStatistics<String> other) {
+            count += other.getCount();
+            values.addAll(((Capitalized) other).values);
+        }
+
+        @Override
+        public void writeState(final DataOutput out) throws IOException {
+            out.writeLong(count);
+            out.writeInt(values.size());
+            for (final String value : values) {
+                out.writeUTF(value);
+            }
+        }
+
+        @Override
+        public void readState(final DataInput in) throws IOException {
+            count = in.readLong();
+            for (int size = in.readInt(); size > 0; size--) {
+                values.add(in.readUTF());
+            }
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public long getUniqueCount() {
+            return values.size();
+        }
+
+        @Override
+        public String getMax() {
+            return values.isEmpty() ? null : values.last();
+        }
+
+        @Override
+        public String getMin() {
+            return values.isEmpty() ? null : values.first();
+        }
+    }
+
+    @Test
+    public void test28_oversizedYear() {
+        final String text = "Date Jan 1, 300000000 here. Date 1/1/999999999 here. Date Jan 5, 2020 here.";
+        final ParseResult result = new TextParser(text, ENGLISH_LOCALE, UniqueCounting.EXACT).parse();
+        Assert.assertEquals(1, result.dateStatics().getCount());
+        Assert.assertEquals(3, result.sentenceStatistics().getCount());
+    }
+
+    @Test
+    public void test29_mostFrequentOverCapacity() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3 * StringStatistics.FREQUENCY_CAPACITY; i++) {
+            text.append("Sentence ").append(i).append(" is unique. ");
+        }
+        final ParseResult result = new TextParser(text.toString(), ENGLISH_LOCALE, UniqueCounting.EXACT).parse();
+        Assert.assertTrue(result.sentenceStatistics().getMostFrequent().get(0).count() > 1);
+        final ByteArrayOutputStream report = new ByteArrayOutputStream();
+        new ParseResultHandler(ENGLISH_LOCALE).write(result, "input", report);
+        Assert.assertTrue(report.toString(StandardCharsets.UTF_8).contains("Most frequent sentences: no value."));
+        report.reset();
+        new JsonResultWriter().write(result, "input", report);
+        Assert.assertTrue(report.toString(StandardCharsets.UTF_8).contains("\"mostFrequent\":[]"));
+
+        for (int i = 0; i < StringStatistics.FREQUENCY_CAPACITY; i++) {
+            text.append("Sentence ").append(i).append(" is unique. Hello again. ");
+        }
+        final ParseResult repeated = new TextParser(text.toString(), ENGLISH_LOCALE, UniqueCounting.EXACT).parse();
+        report.reset();
+        new ParseResultHandler(ENGLISH_LOCALE).write(repeated, "input", report);
+        Assert.assertTrue(report.toString(StandardCharsets.UTF_8).contains("Most frequent sentences: \"Hello again.\" (1,"));
+    }
+
+    @Test
+    public void test30_sketchesBeyondExact() throws IOException {
+        final Random random = new Random(30);
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 12_000; i++) {
+            text.append("Line ").append(i).append(" costs ").append(random.nextInt(100_000)).append('.')
+                    .append(random.nextInt(100)).append(i % 5 == 0 ? " again.\n" : " now. Same line. ");
+        }
+        final Path input = testDirectoryPath.resolve("test30_sketchesBeyondExact.input");
+        Files.writeString(input, text);
+        for (final OutputFormat format : List.of(OutputFormat.TEXT, OutputFormat.JSON)) {
+            final Path single = testDirectoryPath.resolve("test30_sketchesBeyondExact.single");
+            final Path parallel = testDirectoryPath.resolve("test30_sketchesBeyondExact.parallel");
+            TextStatistics.getStatistics(new AnalysisContext(ENGLISH_LOCALE, ENGLISH_LOCALE, 1, UniqueCounting.EXACT, format),
+                    input.toString(), single.toString());
+            TextStatistics.getStatistics(new AnalysisContext(ENGLISH_LOCALE, ENGLISH_LOCALE, 4, UniqueCounting.EXACT, format),
+                    input.toString(), parallel.toString());
+            Assert.assertEquals(Files.readString(single), Files.readString(parallel));
+        }
+
+        // Estimations don't depend on pieces of appended text either
+        final Path snapshot = testDirectoryPath.resolve("test30_sketchesBeyondExact.snapshot");
+        final Path incremental = testDirectoryPath.resolve("test30_sketchesBeyondExact.incremental");
+        final Path full = testDirectoryPath.resolve("test30_sketchesBeyondExact.full");
+        final String[] lines = text.toString().split("(?<=\n)");
+        for (final UniqueCounting counting : List.of(UniqueCounting.EXACT, UniqueCounting.APPROXIMATE)) {
+            final AnalysisContext context = new AnalysisContext(ENGLISH_LOCALE, ENGLISH_LOCALE, 1, counting, OutputFormat.JSON);
+            Files.deleteIfExists(snapshot);
+            Files.write(input, new byte[0]);
+            for (int i = 0; i < lines.length; i += 1537) {
+                Files.writeString(input, String.join("", Arrays.asList(lines).subList(i, Math.min(i + 1537, lines.length))),
+                        StandardOpenOption.APPEND);
+                TextStatistics.getStatistics(context, input.toString(), incremental.toString(), snapshot.toString());
+            }
+            TextStatistics.getStatistics(context, input.toString(), full.toString());
+            Assert.assertEquals(Files.readString(full), Files.readString(incremental));
+        }
+
+        // Saved state doesn't change later estimations
+        final DoubleStatistics saved = new DoubleStatistics();
+        final DoubleStatistics unsaved = new DoubleStatistics();
+        for (int i = 0; i < 5000; i++) {
+            final double value = random.nextGaussian();
+            saved.accept(value);
+            unsaved.accept(value);
+        }
+        final ByteArrayOutputStream state = new ByteArrayOutputStream();
+        saved.writeState(new DataOutputStream(state));
+        final DoubleStatistics read = new DoubleStatistics();
+        read.readState(new DataInputStream(new ByteArrayInputStream(state.toByteArray())));
+        for (int i = 0; i < 5000; i++) {
+            final double value = random.nextGaussian();
+            saved.accept(value);
+            unsaved.accept(value);
+            read.accept(value);
+        }
+        for (final double q : new double[]{0.01, 0.5, 0.9, 0.99}) {
+            Assert.assertEquals(unsaved.getQuantile(q), saved.getQuantile(q));
+            Assert.assertEquals(unsaved.getQuantile(q), read.getQuantile(q));
+        }
+    }
+
+    @Test
+    public void test31_primitiveStatistics() {
+        Assert.assertNull(new DoubleStatistics().getMin());
+        Assert.assertNull(new DoubleStatistics().getAverage());
+        Assert.assertNull(new IntStatistics().getSum());
+        final Random random = new Random(31);
+        final double[] doubles = new double[10_000];
+        final int[] ints = new int[doubles.length];
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = random.nextInt(3000) / (random.nextBoolean() ? 7.0 : -7.0);
+            ints[i] = random.nextInt(3000) * (random.nextBoolean() ? 1 : -1);
+        }
+        doubles[0] = 0.0;
+        doubles[1] = -0.0;
+        doubles[2] = 1e300;
+        ints[0] = Integer.MAX_VALUE;
+        ints[1] = Integer.MAX_VALUE;
+        ints[2] = Integer.MIN_VALUE;
+
+        final DoubleStatistics doubleStatistics = new DoubleStatistics();
+        final DoubleStatistics doubleHalves = new DoubleStatistics();
+        final DoubleStatistics doubleSecondHalf = new DoubleStatistics();
+        final IntStatistics intStatistics = new IntStatistics();
+        final IntStatistics intHalves = new IntStatistics();
+        final IntStatistics intSecondHalf = new IntStatistics();
+        for (int i = 0; i < doubles.length; i++) {
+            doubleStatistics.accept(doubles[i]);
+            (i < doubles.length / 2 ? doubleHalves : doubleSecondHalf).accept(doubles[i]);
+            intStatistics.accept(ints[i]);
+            (i < ints.length / 2 ? intHalves : intSecondHalf).accept(ints[i]);
+        }
+        doubleHalves.merge(doubleSecondHalf);
+        intHalves.merge(intSecondHalf);
+
+        final List<Double> boxedDoubles = Arrays.stream(doubles).boxed().toList();
+        final double doubleSum = Arrays.stream(doubles).mapToObj(BigDecimal::new).reduce(BigDecimal.ZERO, BigDecimal::add).doubleValue();
+        for (final DoubleStatistics statistics : List.of(doubleStatistics, doubleHalves)) {
+            Assert.assertEquals(doubles.length, statistics.getCount());
+            // Zero and negative zero are different, as for Double.equals
+            Assert.assertEquals(new HashSet<>(boxedDoubles).size(), statistics.getUniqueCount());
+            Assert.assertEquals(Collections.min(boxedDoubles), statistics.getMin());
+            Assert.assertEquals(Collections.max(boxedDoubles), statistics.getMax());
+            Assert.assertEquals(doubleSum, statistics.getSum(), 0);
+            Assert.assertEquals(doubleSum / doubles.length, statistics.getAverage(), 0);
+        }
+        final List<Integer> boxedInts = Arrays.stream(ints).boxed().toList();
+        final long intSum = Arrays.stream(ints).asLongStream().sum();
+        for (final IntStatistics statistics : List.of(intStatistics, intHalves)) {
+            Assert.assertEquals(ints.length, statistics.getCount());
+            Assert.assertEquals(new HashSet<>(boxedInts).size(), statistics.getUniqueCount());
+            Assert.assertEquals(Integer.MIN_VALUE, (int) statistics.getMin());
+            Assert.assertEquals(Integer.MAX_VALUE, (int) statistics.getMax());
+            Assert.assertEquals(intSum, (long) statistics.getSum());
+            Assert.assertEquals((double) intSum / ints.length, statistics.getAverage(), 0);
+        }
+    }
+
+    @Test
+    public void test32_binaryFrequenciesAndQuantiles() throws IOException {
+        final ParseResult result = new TextParser(
+                "Apple and pear and plum cost 1.5 and 2. Apple costs 4.",
+                ENGLISH_LOCALE,
+                UniqueCounting.EXACT,
+                StatisticSelection.parse("words,numbers")
+        ).parse();
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        OutputFormat.BINARY.writer(ENGLISH_LOCALE).write(result, "input", binary);
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(binary.toByteArray()));
+        Assert.assertEquals(BinaryResultWriter.MAGIC, in.readInt());
+        Assert.assertEquals(2, in.readByte());
+        Assert.assertEquals("input", readBinaryString(in));
+
+        // Sentences aren't chosen, so they are empty
+        Assert.assertEquals(List.of(), readBinaryStrings(in));
+
+        final List<Frequency<String>> expected = result.wordStatistics().getMostFrequent().stream()
+                .filter(Frequency::isRepeated)
+                .toList();
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, readBinaryStrings(in));
+
+        final DoubleStatistics numbers = result.numberStatistics();
+        Assert.assertEquals(3, readVarint(in));
+        Assert.assertEquals(3, readVarint(in));
+        for (final double expectedValue : new double[]{1.5, 4, 7.5, 2.5}) {
+            Assert.assertEquals(1, in.readByte());
+            Assert.assertEquals(expectedValue, in.readDouble(), 1e-9);
+        }
+        for (final double q : new double[]{0.5, 0.9, 0.99}) {
+            Assert.assertEquals(1, in.readByte());
+            Assert.assertEquals(numbers.getQuantile(q), in.readDouble(), 0);
+        }
+    }
+
+    // Reads string statistics of binary output and returns its most frequent strings
+    private static List<Frequency<String>> readBinaryStrings(final DataInputStream in) throws IOException {
+        final long count = readVarint(in);
+        readVarint(in);
+        for (int i = 0; i < 2; i++) {
+            if (in.readByte() == 1) {
+                readBinaryString(in);
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            if (in.readByte() == 1) {
+                readVarint(in);
+                readBinaryString(in);
+            }
+        }
+        // Average length and quantiles of length
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(count == 0 ? 0 : 1, in.readByte());
+            if (count > 0) {
+                in.readDouble();
+            }
+        }
+        final List<Frequency<String>> frequencies = new ArrayList<>();
+        for (long i = readVarint(in); i > 0; i--) {
+            frequencies.add(new Frequency<>(readBinaryString(in), readVarint(in), readVarint(in)));
+        }
+        return frequencies;
+    }
+
+    private static String readBinaryString(final DataInputStream in) throws IOException {
+        return new String(in.readNBytes(Math.toIntExact(readVarint(in))), StandardCharsets.UTF_8);
+    }
+
+    private static long readVarint(final DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    @Test
+    public void test33_independentOfDefaults() throws IOException {
+        final ParseResult result = new TextParser("Meeting on Jan 5, 2020 costs $3.", ENGLISH_LOCALE, UniqueCounting.EXACT).parse();
+        Assert.assertEquals(new Date(LocalDate.of(2020, 1, 5).toEpochDay() * 24 * 60 * 60 * 1000), result.dateStatics().getMin());
+        final Locale defaultLocale = Locale.getDefault();
+        final TimeZone defaultZone = TimeZone.getDefault();
+        final Set<String> reports = new HashSet<>();
+        try {
+            for (final Locale locale : List.of(RUSSIAN_LOCALE, ENGLISH_LOCALE)) {
+                for (final String zone : List.of("Pacific/Kiritimati", "America/Los_Angeles")) {
+                    Locale.setDefault(locale);
+                    TimeZone.setDefault(TimeZone.getTimeZone(zone));
+                    final StringWriter writer = new StringWriter();
+                    // There is no Italian bundle, so root one is used
+                    new ParseResultHandler(Locale.ITALIAN).write(result, "input", writer);
+                    reports.add(writer.toString());
+                }
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+            TimeZone.setDefault(defaultZone);
+        }
+        Assert.assertEquals(1, reports.size());
+        final String report = reports.iterator().next();
+        Assert.assertTrue(report, report.startsWith("Analyzed File"));
+        Assert.assertTrue(report, report.contains("5 gennaio 2020"));
+    }
+
+    @Test
+    public void test34_contentHash() {
+        final Random random = new Random(34);
+        final byte[] bytes = new byte[1000];
+        random.nextBytes(bytes);
+        final ContentHash whole = new ContentHash();
+        whole.update(bytes);
+        final String expected = whole.finish();
+        Assert.assertEquals(32, expected.length());
+        for (int i = 0; i < 20; i++) {
+            final ContentHash pieces = new ContentHash();
+            for (int start = 0; start < bytes.length; ) {
+                final int end = Math.min(bytes.length, start + random.nextInt(40));
+                final ByteBuffer piece = ByteBuffer.allocateDirect(end - start).put(bytes, start, end - start).flip();
+                pieces.update(piece);
+                Assert.assertFalse(piece.hasRemaining());
+                start = end;
+            }
+            Assert.assertEquals(expected, pieces.finish());
+        }
+        for (int length = 0; length < 40; length++) {
+            final ContentHash prefix = new ContentHash();
+            prefix.update(Arrays.copyOf(bytes, length));
+            final ContentHash changed = new ContentHash();
+            final byte[] copy = Arrays.copyOf(bytes, length + 1);
+            copy[length]++;
+            changed.update(copy);
+            final ContentHash longer = new ContentHash();
+            longer.update(Arrays.copyOf(bytes, length + 1));
+            final String longerHash = longer.finish();
+            Assert.assertNotEquals(prefix.finish(), longerHash);
+            Assert.assertNotEquals(longerHash, changed.finish());
+        }
+    }
+
+    @Test
+    public void test35_forcedSplitKeepsWords() throws IOException {
+        final String words = "abcde ".repeat(100);
+        // Forced end falls between chars of a pair
+        final String pairs = "a" + "\uD835\uDC9C".repeat(200);
+        final String word = "a".repeat(200);
+        for (final String text : List.of(words, pairs, word)) {
+            final Path input = testDirectoryPath.resolve("test35_forcedSplitKeepsWords.input");
+            Files.writeString(input, text);
+            final List<String> pieces = new ArrayList<>();
+            new ChunkedTextReader(ENGLISH_LOCALE, 4).read(input, pieces::add);
+            Assert.assertEquals(text, String.join("", pieces));
+            Assert.assertTrue(pieces.size() > 1);
+            for (int i = 1; i < pieces.size(); i++) {
+                final String previous = pieces.get(i - 1);
+                final char last = previous.charAt(previous.length() - 1);
+                final char first = pieces.get(i).charAt(0);
+                Assert.assertFalse(Character.isSurrogatePair(last, first));
+                Assert.assertTrue(text != words || last == ' ' || first == ' ');
+            }
+
+            // Pieces of appended text are the same
+            final List<String> appended = new ArrayList<>();
+            final ChunkedTextReader reader = new ChunkedTextReader(ENGLISH_LOCALE, 4);
+            Files.write(input, new byte[0]);
+            ChunkedTextReader.Tail tail = ChunkedTextReader.Tail.EMPTY;
+            final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            for (int start = 0; start < bytes.length; start += 37) {
+                Files.write(input, Arrays.copyOfRange(bytes, start, Math.min(bytes.length, start + 37)), StandardOpenOption.APPEND);
+                tail = reader.readAppended(input, tail, appended::add);
+            }
+            reader.readTail(tail, appended::add);
+            Assert.assertEquals(pieces, appended);
+        }
+    }
+
+
     @AfterClass
     public static void setDown() throws IOException {
         Files.walkFileTree(testDirectoryPath, new FileVisitor<Path>() {
@@ -1,108 +1,344 @@
 package info.kgeorgiy.ja.smirnov.i18n;
 
+import info.kgeorgiy.ja.smirnov.i18n.statistics.CollationKeyComparator;
 import info.kgeorgiy.ja.smirnov.i18n.statistics.DateStatistics;
 import info.kgeorgiy.ja.smirnov.i18n.statistics.DoubleStatistics;
 import info.kgeorgiy.ja.smirnov.i18n.statistics.StringStatistics;
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
 
 import java.text.*;
-import java.util.function.BiFunction;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
+import java.util.function.DoubleConsumer;
 
 public class TextParser {
 
-    private final StringStatistics sentenceStatistics = new StringStatistics(Collator.getInstance());
-    private final StringStatistics wordStatistics = new StringStatistics(Collator.getInstance());
-    private final DoubleStatistics numberStatistics = new DoubleStatistics();
-    private final DoubleStatistics currencyStatistics = new DoubleStatistics();
-    private final DateStatistics dateStatistics = new DateStatistics();
+    private final StringStatistics sentenceStatistics;
+    private final StringStatistics wordStatistics;
+    private final DoubleStatistics numberStatistics;
+    private final DoubleStatistics currencyStatistics;
+    private final DateStatistics dateStatistics;
+    private final StatisticSelection selection;
+    private final List<TokenStatistics<?>> customStatistics;
+    private final boolean parseSentences;
+    private final boolean parseWords;
+    private final boolean parseNumbers;
+    private final boolean parseAmounts;
+    private final boolean parseDates;
+    private final AnalysisMetrics metrics = new AnalysisMetrics();
 
-    private final NumberFormat numberFormat = NumberFormat.getNumberInstance();
-    private final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance();
-    private final DateFormat dateFormat = DateFormat.getDateInstance();
-    private final String text;
+    private final NumberLexer numberLexer;
+    private final NumberLexer currencyLexer;
+    private final DateMatcher dateMatcher;
+    private final TokenClassifier classifier;
+    private final BreakIterator sentenceIterator;
+    private final BreakIterator wordIterator;
+    private String text;
     private final ParsePosition position = new ParsePosition(0);
+    private final Token token = new Token();
+    // End of the last found date
+    private int dateEnd;
+
+    public TextParser() {
+        this("");
+    }
 
     public TextParser(final String text) {
+        this(text, UniqueCounting.EXACT);
+    }
+
+    public TextParser(final UniqueCounting counting) {
+        this("", counting);
+    }
+
+    public TextParser(final String text, final UniqueCounting counting) {
+        this(text, Locale.getDefault(), counting);
+    }
+
+    public TextParser(final Locale locale, final UniqueCounting counting) {
+        this("", locale, counting);
+    }
+
+    public TextParser(final Locale locale, final UniqueCounting counting, final StatisticSelection selection) {
+        this("", locale, counting, selection);
+    }
+
+    public TextParser(final String text, final Locale locale, final UniqueCounting counting) {
+        this(text, locale, counting, StatisticSelection.all());
+    }
+
+    /**
+     * Creates parser of text.
+     * @param text text to parse.
+     * @param locale locale of text.
+     * @param counting way of counting unique values.
+     * @param selection statistics to collect, parsers of other ones aren't invoked.
+     */
+    public TextParser(final String text, final Locale locale, final UniqueCounting counting, final StatisticSelection selection) {
         this.text = text;
+        this.selection = selection;
+        parseSentences = selection.contains(StatisticCategory.SENTENCES);
+        parseWords = selection.contains(StatisticCategory.WORDS);
+        parseNumbers = selection.contains(StatisticCategory.NUMBERS);
+        parseAmounts = selection.contains(StatisticCategory.AMOUNTS);
+        parseDates = selection.contains(StatisticCategory.DATES);
+        customStatistics = selection.providers().stream()
+                .<TokenStatistics<?>>map(provider -> provider.create(locale, counting))
+                .toList();
+        final LocaleResources.Parsing parsing = LocaleResources.parsing(locale);
+        numberLexer = parsing.numberLexer();
+        currencyLexer = parsing.currencyLexer();
+        dateMatcher = parsing.dateMatcher();
+        classifier = parsing.classifier();
+        sentenceIterator = parsing.sentenceIterator();
+        wordIterator = parsing.wordIterator();
+        sentenceStatistics = new StringStatistics(parsing.collator(), counting);
+        // Words repeat often, so their collation keys are cached. Sentences are mostly unique and long
+        wordStatistics = new StringStatistics(new CollationKeyComparator(parsing.collator()), counting);
+        numberStatistics = new DoubleStatistics(counting);
+        currencyStatistics = new DoubleStatistics(counting);
+        dateStatistics = new DateStatistics(counting);
     }
 
     public ParseResult parse() {
         findStatistics();
+        return getResult();
+    }
+
+    /**
+     * Parses next chunk of text and adds it to already collected statistics.
+     * @param chunk text that starts and ends on sentence boundaries.
+     */
+    public void parse(final String chunk) {
+        text = chunk;
+        findStatistics();
+    }
+
+    /**
+     * Gets counters and parse time of all parsed text.
+     */
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ParseResult getResult() {
         return new ParseResult(
                 sentenceStatistics,
                 wordStatistics,
                 numberStatistics,
                 currencyStatistics,
-                dateStatistics
+                dateStatistics,
+                selection,
+                customStatistics
         );
     }
 
+    /**
+     * Adds statistics of the text, counts it in metrics and reports it to Flight Recorder.
+     */
     public void findStatistics() {
-        parseSentences();
-        parseWords();
-    }
-
-    private void withTextIterator(
-            final String text,
-            final Supplier<BreakIterator> iteratorSupplier,
-            final Consumer<String> consumer
-    ) {
-        final BreakIterator iterator = iteratorSupplier.get();
-        iterator.setText(text);
-        int start = iterator.first();
-        for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
-            position.setIndex(start);
-            final String next = text.substring(start, end).trim();
-            if (next.isEmpty()) {
-                continue;
+        final FlightEvents.ParseChunk event = new FlightEvents.ParseChunk();
+        event.begin();
+        final long start = System.nanoTime();
+        final long sentences = metrics.sentences;
+        final long tokens = metrics.tokens;
+        final long numbers = metrics.numberMatches;
+        final long amounts = metrics.currencyMatches;
+        final long dates = metrics.dateMatches;
+        breakText();
+        metrics.charsParsed += text.length();
+        metrics.parseNanos += System.nanoTime() - start;
+        if (event.shouldCommit()) {
+            event.chars = text.length();
+            event.sentences = metrics.sentences - sentences;
+            event.tokens = metrics.tokens - tokens;
+            event.numbers = metrics.numberMatches - numbers;
+            event.amounts = metrics.currencyMatches - amounts;
+            event.dates = metrics.dateMatches - dates;
+            event.commit();
+        }
+    }
+
+    /**
+     * Finds sentences and words in one pass over the text.
+     * Every sentence is handled before words, that start after it.
+     * Text isn't broken into sentences or words, if nothing is collected of them.
+     */
+    private void breakText() {
+        dateEnd = 0;
+        final boolean custom = !customStatistics.isEmpty();
+        int sentenceStart = 0;
+        int sentenceEnd = BreakIterator.DONE;
+        if (parseSentences || custom) {
+            sentenceIterator.setText(text);
+            sentenceStart = sentenceIterator.first();
+            sentenceEnd = sentenceIterator.next();
+        }
+        if (!(parseWords || parseNumbers || parseAmounts || parseDates || custom)) {
+            for (; sentenceEnd != BreakIterator.DONE; sentenceEnd = sentenceIterator.next()) {
+                withToken(sentenceStart, sentenceEnd, this::handleSentence);
+                sentenceStart = sentenceEnd;
+            }
+            return;
+        }
+        wordIterator.setText(text);
+        int wordStart = wordIterator.first();
+        for (int wordEnd = wordIterator.next(); wordEnd != BreakIterator.DONE; wordStart = wordEnd, wordEnd = wordIterator.next()) {
+            for (; sentenceEnd != BreakIterator.DONE && sentenceEnd <= wordStart; sentenceEnd = sentenceIterator.next()) {
+                withToken(sentenceStart, sentenceEnd, this::handleSentence);
+                sentenceStart = sentenceEnd;
             }
-            consumer.accept(next);
+            position.setIndex(wordStart);
+            metrics.tokens++;
+            withToken(wordStart, wordEnd, this::handleWord);
+        }
+        for (; sentenceEnd != BreakIterator.DONE; sentenceEnd = sentenceIterator.next()) {
+            withToken(sentenceStart, sentenceEnd, this::handleSentence);
+            sentenceStart = sentenceEnd;
         }
     }
 
+    // Same as text.substring(start, end).trim(), but token is a view of text
+    private void withToken(int start, int end, final Consumer<CharSequence> consumer) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (start < end && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+        token.set(text, start, end);
+        consumer.accept(token);
+    }
 
-    private <T> boolean handleParse(final BiFunction<String, ParsePosition, T> function, final Consumer<T> consumer) {
+
+    // Returns whether number is found
+    private boolean handleNumberParse(final NumberLexer lexer, final DoubleConsumer consumer) {
         final int index = position.getIndex();
-        final T t = function.apply(text, position);
+        final double value = lexer.parse(text, position);
         if (position.getIndex() == index) {
             return false;
         }
         position.setIndex(index);
-        consumer.accept(t);
+        consumer.accept(value);
         return true;
     }
 
+    // Every SAMPLE_PERIOD-th attempt is timed
+    private static boolean sampled(final long attempt) {
+        return attempt % AnalysisMetrics.SAMPLE_PERIOD == 0;
+    }
+
     private void handleNumber() {
-        handleParse(numberFormat::parse, (n) -> numberStatistics.accept(n.doubleValue()));
+        final boolean sampled = sampled(metrics.numberAttempts++);
+        final long start = sampled ? System.nanoTime() : 0;
+        if (handleNumberParse(numberLexer, numberStatistics)) {
+            metrics.numberMatches++;
+        }
+        if (sampled) {
+            metrics.numberNanos += (System.nanoTime() - start) * AnalysisMetrics.SAMPLE_PERIOD;
+        }
     }
 
     private void handleCurrency() {
-        handleParse(currencyFormat::parse, (c) -> currencyStatistics.accept(c.doubleValue()));
+        final boolean sampled = sampled(metrics.currencyAttempts++);
+        final long start = sampled ? System.nanoTime() : 0;
+        if (handleNumberParse(currencyLexer, currencyStatistics)) {
+            metrics.currencyMatches++;
+        }
+        if (sampled) {
+            metrics.currencyNanos += (System.nanoTime() - start) * AnalysisMetrics.SAMPLE_PERIOD;
+        }
     }
 
     private void handleDate() {
-        handleParse(dateFormat::parse, dateStatistics);
+        final int index = position.getIndex();
+        // Parts of a long date may be dates of shorter style
+        if (index < dateEnd) {
+            return;
+        }
+        final boolean sampled = sampled(metrics.dateAttempts++);
+        final long start = sampled ? System.nanoTime() : 0;
+        final long date = dateMatcher.match(text, position);
+        if (position.getIndex() != index) {
+            dateEnd = position.getIndex();
+            position.setIndex(index);
+            dateStatistics.acceptMillis(date);
+            metrics.dateMatches++;
+        }
+        if (sampled) {
+            metrics.dateNanos += (System.nanoTime() - start) * AnalysisMetrics.SAMPLE_PERIOD;
+        }
     }
 
-    private void handleWord(final String word) {
-        if (Character.isLetter(word.codePointAt(0))) {
+    private void handleWord(final CharSequence word) {
+        if (parseWords && Character.isLetter(Character.codePointAt(word, 0))) {
             wordStatistics.accept(word);
         }
-        handleCurrency();
-        handleNumber();
-        handleDate();
+        // Number formats are slow to fail, so they are tried only when the first character fits.
+        // Date matcher checks the first character itself
+        final char first = text.charAt(position.getIndex());
+        if (parseAmounts && classifier.mayBeCurrency(first)) {
+            handleCurrency();
+        }
+        if (parseNumbers && classifier.mayBeNumber(first)) {
+            handleNumber();
+        }
+        if (parseDates) {
+            handleDate();
+        }
+        for (final TokenStatistics<?> statistics : customStatistics) {
+            statistics.acceptWord(word);
+        }
     }
 
-    private void handleSentence(final String sentence) {
-        sentenceStatistics.accept(sentence);
+    private void handleSentence(final CharSequence sentence) {
+        metrics.sentences++;
+        if (parseSentences) {
+            sentenceStatistics.accept(sentence);
+        }
+        for (final TokenStatistics<?> statistics : customStatistics) {
+            statistics.acceptSentence(sentence);
+        }
     }
 
-    private void parseSentences() {
-        withTextIterator(text, BreakIterator::getSentenceInstance, this::handleSentence);
-    }
+    /**
+     * Chars of text between offsets, that is reused for every token.
+     * Statistics make a string of it, if they keep the token.
+     */
+    private static final class Token implements CharSequence {
+        private String text;
+        private int start;
+        private int end;
+
+        void set(final String text, final int start, final int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
 
-    private void parseWords() {
-        withTextIterator(text, BreakIterator::getWordInstance, this::handleWord);
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return text.charAt(start + Objects.checkIndex(index, end - start));
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return text.subSequence(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return text.substring(start, end);
+        }
     }
 }
@@ -1,21 +1,46 @@
 package info.kgeorgiy.ja.smirnov.i18n;
 
+import info.kgeorgiy.ja.smirnov.i18n.statistics.UniqueCounting;
+
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.IllformedLocaleException;
 import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class TextStatistics {
+    /**
+     * System property, that enables summary of metrics after analysis.
+     */
+    public static final String METRICS_PROPERTY = "info.kgeorgiy.ja.smirnov.i18n.metrics";
+    /**
+     * System property with way of counting unique values: {@code exact} (default), {@code approximate} or {@code fingerprint}.
+     */
+    public static final String COUNTING_PROPERTY = "info.kgeorgiy.ja.smirnov.i18n.counting";
+    /**
+     * System property with charset of input files, {@code auto} (default) to recognize it in every file.
+     */
+    public static final String CHARSET_PROPERTY = "info.kgeorgiy.ja.smirnov.i18n.charset";
+    /**
+     * System property with comma-separated statistics to collect, {@code all} (default) for all of them,
+     * see {@link StatisticSelection#parse}.
+     */
+    public static final String STATISTICS_PROPERTY = "info.kgeorgiy.ja.smirnov.i18n.statistics";
 
     public static void main(String[] args) throws Exception {
         if (args == null) {
             System.out.println("Args is null");
             return;
-        } else if (args.length != 4) {
+        } else if (args.length < 4 || args.length > 6) {
             System.out.println("Wrong number of arguments (" + args.length + "), " +
-                    " expected: [input locale, output locale, input file name, output file name]");
+                    " expected: [input locale, output locale, input file name, output file name," +
+                    " [text|json|binary, [snapshot file name]]]");
             return;
         }
         try {
@@ -23,13 +48,20 @@ public class TextStatistics {
             final Locale outputLocale = parseLocale(args[1]);
             final String inputFileName = args[2];
             final String outputFileName = args[3];
+            final OutputFormat format = args.length >= 5 ? parseFormat(args[4]) : OutputFormat.TEXT;
             try {
-                getStatistics(inputLocale, outputLocale, inputFileName, outputFileName);
+                final AnalysisContext context = new AnalysisContext(inputLocale, outputLocale, 1, parseCounting(), format, parseCharset(), parseStatistics());
+                final AnalysisMetrics metrics = args.length == 6
+                        ? getStatistics(context, inputFileName, outputFileName, args[5])
+                        : getStatistics(context, inputFileName, outputFileName);
+                if (Boolean.getBoolean(METRICS_PROPERTY)) {
+                    System.out.print(metrics.summary());
+                }
             } catch (final RuntimeException e) {
                 System.out.println(e.getMessage());
                 e.printStackTrace();
             }
-        } catch (final IllformedLocaleException e) {
+        } catch (final IllformedLocaleException | IllegalArgumentException e) {
             System.out.println(e.getMessage());
             e.printStackTrace();
         }
@@ -48,19 +80,253 @@ public class TextStatistics {
             final String inputFilePath,
             final String outputFilePath
     ) {
-        Locale.setDefault(inputLocale);
-        final String input;
+        getStatistics(inputLocale, outputLocale, inputFilePath, outputFilePath, 1, UniqueCounting.EXACT);
+    }
+
+    /**
+     * Gets text statistic of input file, parsing it in several threads.
+     * @param inputLocale locale of input file.
+     * @param outputLocale output file locale.
+     * @param inputFilePath path to input file.
+     * @param outputFilePath path to output file.
+     * @param threads number of threads to parse input in.
+     * @param counting way of counting unique values.
+     */
+    public static void getStatistics(
+            final Locale inputLocale,
+            final Locale outputLocale,
+            final String inputFilePath,
+            final String outputFilePath,
+            final int threads,
+            final UniqueCounting counting
+    ) {
+        getStatistics(new AnalysisContext(inputLocale, outputLocale, threads, counting), inputFilePath, outputFilePath);
+    }
+
+    /**
+     * Gets text statistic of input file. Default locale isn't used or changed,
+     * so it is safe to call concurrently.
+     * @param context settings of analysis.
+     * @param inputFilePath path to input file.
+     * @param outputFilePath path to output file.
+     * @return metrics of analysis.
+     */
+    public static AnalysisMetrics getStatistics(
+            final AnalysisContext context,
+            final String inputFilePath,
+            final String outputFilePath
+    ) {
+        return analyze(context, inputFilePath, outputFilePath, metrics -> parse(context, inputFilePath, metrics));
+    }
+
+    /**
+     * Gets text statistic of input file, that only grows. State of analysis is kept in snapshot file,
+     * so only text appended since the previous call with the same snapshot is parsed.
+     * Report is the same, as if the whole file was parsed: chunks depend only on text, not on the pieces,
+     * that it was appended by, and their statistics are merged into saved ones in the same order.
+     * Appended text is parsed in one thread.
+     * @param context settings of analysis.
+     * @param inputFilePath path to input file.
+     * @param outputFilePath path to output file.
+     * @param snapshotFilePath path to snapshot file, it is created, if it doesn't exist.
+     * @return metrics of analysis of appended text.
+     */
+    public static AnalysisMetrics getStatistics(
+            final AnalysisContext context,
+            final String inputFilePath,
+            final String outputFilePath,
+            final String snapshotFilePath
+    ) {
+        return analyze(context, inputFilePath, outputFilePath,
+                metrics -> parseAppended(context, inputFilePath, Path.of(snapshotFilePath), metrics));
+    }
+
+    /**
+     * Gets text statistic of input file, taking statistics from cache, if the same file was analyzed before.
+     * @param context settings of analysis.
+     * @param inputFilePath path to input file.
+     * @param outputFilePath path to output file.
+     * @param cache cache of statistics.
+     * @return metrics of analysis, there are no parse metrics, if statistics are taken from cache.
+     */
+    public static AnalysisMetrics getStatistics(
+            final AnalysisContext context,
+            final String inputFilePath,
+            final String outputFilePath,
+            final ResultCache cache
+    ) {
+        return analyze(context, inputFilePath, outputFilePath,
+                metrics -> cache.get(context, Path.of(inputFilePath), () -> parse(context, inputFilePath, metrics)));
+    }
+
+    private static AnalysisMetrics analyze(
+            final AnalysisContext context,
+            final String inputFilePath,
+            final String outputFilePath,
+            final Function<AnalysisMetrics, ParseResult> parser
+    ) {
+        final FlightEvents.Analysis event = new FlightEvents.Analysis();
+        event.begin();
+        final AnalysisMetrics metrics = new AnalysisMetrics();
+        save(context, parser.apply(metrics), inputFilePath, Path.of(outputFilePath), metrics);
+        if (event.shouldCommit()) {
+            event.inputFile = inputFilePath;
+            event.threads = context.threads();
+            event.bytesRead = metrics.getBytesRead();
+            event.charsParsed = metrics.getCharsParsed();
+            event.commit();
+        }
+        return metrics;
+    }
+
+    /**
+     * Writes statistics in the format of context.
+     * @param context settings of analysis.
+     * @param result statistics to write.
+     * @param inputName name of analyzed input.
+     * @param outputPath path to output file.
+     */
+    static void save(final AnalysisContext context, final ParseResult result, final String inputName, final Path outputPath) {
+        save(context, result, inputName, outputPath, new AnalysisMetrics());
+    }
+
+    private static void save(
+            final AnalysisContext context,
+            final ParseResult result,
+            final String inputName,
+            final Path outputPath,
+            final AnalysisMetrics metrics
+    ) {
+        final FlightEvents.Report event = new FlightEvents.Report();
+        event.begin();
+        final long start = System.nanoTime();
+        try (final OutputStream out = Files.newOutputStream(outputPath)) {
+            context.format().writer(context.outputLocale()).write(result, inputName, out);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        metrics.reportNanos += System.nanoTime() - start;
+        if (event.shouldCommit()) {
+            event.outputFile = outputPath.toString();
+            event.format = context.format().name();
+            event.locale = context.outputLocale().toLanguageTag();
+            event.commit();
+        }
+    }
+
+    /**
+     * Collects statistics of input file.
+     * @param context settings of analysis.
+     * @param inputFilePath path to input file.
+     * @return statistics of the file.
+     */
+    static ParseResult parse(final AnalysisContext context, final String inputFilePath) {
+        return parse(context, inputFilePath, new AnalysisMetrics());
+    }
+
+    // Chunks are parsed separately and merged in order even in one thread,
+    // so estimated quantiles and most frequent values don't depend on number of threads.
+    // One thread parses on the calling thread, so files of batch don't start pools
+    private static ParseResult parse(final AnalysisContext context, final String inputFilePath, final AnalysisMetrics metrics) {
+        if (context.threads() == 1) {
+            return parse(context, inputFilePath, metrics, null);
+        }
+        final ForkJoinPool pool = new ForkJoinPool(context.threads());
         try {
-            input = Files.readString(Path.of(inputFilePath));
+            return parse(context, inputFilePath, metrics, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ParseResult parse(
+            final AnalysisContext context,
+            final String inputFilePath,
+            final AnalysisMetrics metrics,
+            final ForkJoinPool pool
+    ) {
+        final ParallelTextParser parser = pool == null
+                ? new ParallelTextParser(context.inputLocale(), context.counting(), context.statistics())
+                : new ParallelTextParser(pool, context.inputLocale(), context.counting(), context.statistics());
+        read(inputFilePath, context, parser, metrics);
+        final ParseResult result = parser.getResult();
+        metrics.merge(parser.getMetrics());
+        return result;
+    }
+
+    /**
+     * Collects statistics of input file or takes them from cache.
+     * @param context settings of analysis.
+     * @param inputFilePath path to input file.
+     * @param cache cache of statistics, {@code null} if statistics aren't cached.
+     * @return statistics of the file.
+     */
+    static ParseResult parse(final AnalysisContext context, final String inputFilePath, final ResultCache cache) {
+        if (cache == null) {
+            return parse(context, inputFilePath);
+        }
+        return cache.get(context, Path.of(inputFilePath), () -> parse(context, inputFilePath));
+    }
+
+    private static ParseResult parseAppended(
+            final AnalysisContext context,
+            final String inputFilePath,
+            final Path snapshotPath,
+            final AnalysisMetrics metrics
+    ) {
+        final Path inputPath = Path.of(inputFilePath);
+        final AnalysisSnapshot.Saved saved = AnalysisSnapshot.read(snapshotPath, context, inputPath);
+        // Chunks are parsed and merged as in analysis of the whole file, so the result is the same
+        final ParallelTextParser parser = new ParallelTextParser(saved.result(), context.inputLocale(), context.counting(), context.statistics());
+        final ChunkedTextReader reader = new ChunkedTextReader(context.inputLocale(), ChunkedTextReader.DEFAULT_CHUNK_SIZE, context.charset());
+        final ChunkedTextReader.Tail tail;
+        try {
+            tail = reader.readAppended(inputPath, saved.tail(), parser);
+        } catch (final IOException e) {
+            System.out.println("Can't read data from input file, " + inputFilePath);
+            throw new UncheckedIOException(e);
+        }
+        AnalysisSnapshot.write(snapshotPath, context, inputPath, tail, parser.getResult());
+        reader.readTail(tail, parser);
+        metrics.merge(reader.getMetrics());
+        metrics.merge(parser.getMetrics());
+        return parser.getResult();
+    }
+
+    private static void read(
+            final String inputFilePath,
+            final AnalysisContext context,
+            final Consumer<String> consumer,
+            final AnalysisMetrics metrics
+    ) {
+        final ChunkedTextReader reader = new ChunkedTextReader(context.inputLocale(), ChunkedTextReader.DEFAULT_CHUNK_SIZE, context.charset());
+        try {
+            reader.read(Path.of(inputFilePath), consumer);
         } catch (final IOException e) {
             System.out.println("Can't read data from input file, " + inputFilePath);
             throw new UncheckedIOException(e);
         }
-        final ParseResult result = new TextParser(input).parse();
-        Locale.setDefault(outputLocale);
-        new ParseResultHandler().save(result, inputFilePath, outputFilePath);
+        metrics.merge(reader.getMetrics());
     }
-    private static Locale parseLocale(final String locale) {
+
+    static OutputFormat parseFormat(final String format) {
+        return OutputFormat.valueOf(format.toUpperCase(Locale.ROOT));
+    }
+
+    static UniqueCounting parseCounting() {
+        return UniqueCounting.valueOf(System.getProperty(COUNTING_PROPERTY, "exact").toUpperCase(Locale.ROOT));
+    }
+
+    static Charset parseCharset() {
+        final String charset = System.getProperty(CHARSET_PROPERTY, "auto");
+        return charset.equalsIgnoreCase("auto") ? null : Charset.forName(charset);
+    }
+
+    static StatisticSelection parseStatistics() {
+        return StatisticSelection.parse(System.getProperty(STATISTICS_PROPERTY, "all"));
+    }
+
+    static Locale parseLocale(final String locale) {
         final String[] fullLocale = locale.split("_");
         final Locale.Builder builder = new Locale.Builder();
         if (fullLocale.length > 0) {
@@ -0,0 +1,70 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+
+/**
+ * Tells by the first character of a token, whether number or currency format may parse it.
+ * Classification is conservative: when format can parse token, it is never rejected.
+ */
+class TokenClassifier {
+    private final CharClass numberStart;
+    private final CharClass currencyStart;
+
+    TokenClassifier(final NumberFormat numberFormat, final NumberFormat currencyFormat) {
+        numberStart = ofNumber(numberFormat);
+        currencyStart = ofNumber(currencyFormat);
+    }
+
+    boolean mayBeNumber(final char first) {
+        return numberStart.test(first);
+    }
+
+    boolean mayBeCurrency(final char first) {
+        return currencyStart.test(first);
+    }
+
+    // Same case folding, as in String.regionMatches(true, ...)
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static void appendFirst(final StringBuilder chars, final String string) {
+        if (!string.isEmpty()) {
+            chars.append(fold(string.charAt(0)));
+        }
+    }
+
+    private static CharClass ofNumber(final NumberFormat format) {
+        if (!(format instanceof DecimalFormat decimalFormat)) {
+            return CharClass.ANY;
+        }
+        final DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+        final StringBuilder chars = new StringBuilder();
+        appendFirst(chars, symbols.getNaN());
+        appendFirst(chars, decimalFormat.getPositivePrefix());
+        appendFirst(chars, decimalFormat.getNegativePrefix());
+        // Number itself may start only if one of the prefixes is empty
+        final boolean unprefixed = decimalFormat.getPositivePrefix().isEmpty() || decimalFormat.getNegativePrefix().isEmpty();
+        if (unprefixed) {
+            for (int i = 0; i < 10; i++) {
+                chars.append((char) (symbols.getZeroDigit() + i));
+            }
+            appendFirst(chars, symbols.getInfinity());
+            chars.append(symbols.getDecimalSeparator());
+            chars.append(symbols.getMonetaryDecimalSeparator());
+            chars.append(symbols.getGroupingSeparator());
+            chars.append(symbols.getMonetaryGroupingSeparator());
+        }
+        return new CharClass(false, unprefixed, chars.toString());
+    }
+
+    private record CharClass(boolean any, boolean digits, String chars) {
+        static final CharClass ANY = new CharClass(true, true, "");
+
+        boolean test(final char c) {
+            return any || digits && Character.digit(c, 10) >= 0 || chars.indexOf(fold(c)) >= 0;
+        }
+    }
+}
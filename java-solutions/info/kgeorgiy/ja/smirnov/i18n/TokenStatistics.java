@@ -0,0 +1,41 @@
+package info.kgeorgiy.ja.smirnov.i18n;
+
+import info.kgeorgiy.ja.smirnov.i18n.statistics.Statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Custom statistics, that are collected in the same pass over text as built-in ones.
+ * Tokens are views of parsed text, that are valid only during the call, so they are copied by {@code toString()}, if kept.
+ */
+public interface TokenStatistics<T> extends Statistics<T> {
+    /**
+     * Accepts sentence without surrounding whitespace.
+     */
+    default void acceptSentence(final CharSequence sentence) {
+    }
+
+    /**
+     * Accepts token between word boundaries without surrounding whitespace, such as word, number or punctuation.
+     */
+    default void acceptWord(final CharSequence word) {
+    }
+
+    /**
+     * Adds statistics of text, that follows text of these statistics.
+     * @param other statistics created by the same provider.
+     */
+    void merge(TokenStatistics<T> other);
+
+    /**
+     * Writes state, that may be read by {@link #readState}.
+     */
+    void writeState(DataOutput out) throws IOException;
+
+    /**
+     * Reads state written by {@link #writeState} into empty statistics.
+     */
+    void readState(DataInput in) throws IOException;
+}
@@ -1,31 +1,55 @@
 package info.kgeorgiy.ja.smirnov.i18n.statistics;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Comparator;
-import java.util.HashSet;
-import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 abstract class AbstractStatistics<T> implements Consumer<T>, Statistics<T> {
 
-    protected Set<T> uniques = new HashSet<>();
+    protected final Uniques<T> uniques;
     protected long count = 0;
     protected T max;
     protected T min;
     protected Comparator<? super T> comparator;
 
-    public AbstractStatistics(final Comparator<? super T> comparator) {
+    public AbstractStatistics(
+            final Comparator<? super T> comparator,
+            final UniqueCounting counting,
+            final ToLongFunction<? super T> hash,
+            final FingerprintUniques.Fingerprint<? super T> fingerprint
+    ) {
         this.comparator = comparator;
+        this.uniques = Uniques.create(counting, hash, fingerprint);
     }
 
 
     public void accept(final T t) {
         ++count;
         uniques.add(t);
+        acceptMax(t);
+        acceptMin(t);
+    }
+
+    /**
+     * Accepts value, that was accepted before, so min and max are already at most and at least it.
+     */
+    protected void acceptRepeated(final T t) {
+        ++count;
+        uniques.add(t);
+    }
+
+    private void acceptMax(final T t) {
         if (max == null) {
             max = t;
         } else {
             max = comparator.compare(max, t) > 0 ? max : t;
         }
+    }
+
+    private void acceptMin(final T t) {
         if (min == null) {
             min = t;
         } else {
@@ -33,6 +57,47 @@ abstract class AbstractStatistics<T> implements Consumer<T>, Statistics<T> {
         }
     }
 
+    /**
+     * Adds statistics of values, that follow values of this statistics.
+     * Result is the same as if all values were accepted by this statistics.
+     */
+    protected void merge(final AbstractStatistics<T> other) {
+        count += other.count;
+        uniques.merge(other.uniques);
+        if (other.max != null) {
+            acceptMax(other.max);
+        }
+        if (other.min != null) {
+            acceptMin(other.min);
+        }
+    }
+
+    /**
+     * Writes state of statistics, values are written by writer.
+     */
+    protected void writeState(final DataOutput out, final Uniques.ValueWriter<? super T> writer) throws IOException {
+        out.writeLong(count);
+        if (count > 0) {
+            writer.write(out, min);
+            writer.write(out, max);
+        }
+        uniques.writeState(out, writer);
+    }
+
+    /**
+     * Reads state written by {@link #writeState} into empty statistics.
+     */
+    protected void readState(final DataInput in, final Uniques.ValueReader<? extends T> reader) throws IOException {
+        StateIO.checkEmpty(count);
+        final long count = in.readLong();
+        if (count > 0) {
+            min = reader.read(in);
+            max = reader.read(in);
+        }
+        uniques.readState(in, reader);
+        this.count = count;
+    }
+
     public long getCount() {
         return count;
     }
@@ -0,0 +1,37 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+class ApproximateLongUniques implements LongUniques {
+    private final HyperLogLog sketch = new HyperLogLog();
+
+    @Override
+    public void add(final long value) {
+        sketch.add(Hashing.mix(value));
+    }
+
+    @Override
+    public long size() {
+        return sketch.estimate();
+    }
+
+    @Override
+    public void merge(final LongUniques other) {
+        if (!(other instanceof ApproximateLongUniques approximate)) {
+            throw Uniques.incompatible(this, other);
+        }
+        sketch.merge(approximate.sketch);
+    }
+
+    @Override
+    public void writeState(final DataOutput out) throws IOException {
+        sketch.writeState(out);
+    }
+
+    @Override
+    public void readState(final DataInput in) throws IOException {
+        sketch.readState(in);
+    }
+}
@@ -0,0 +1,43 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.ToLongFunction;
+
+class ApproximateUniques<T> implements Uniques<T> {
+    private final HyperLogLog sketch = new HyperLogLog();
+    private final ToLongFunction<? super T> hash;
+
+    ApproximateUniques(final ToLongFunction<? super T> hash) {
+        this.hash = hash;
+    }
+
+    @Override
+    public void add(final T t) {
+        sketch.add(hash.applyAsLong(t));
+    }
+
+    @Override
+    public long size() {
+        return sketch.estimate();
+    }
+
+    @Override
+    public void merge(final Uniques<T> other) {
+        if (!(other instanceof ApproximateUniques<T> approximate)) {
+            throw Uniques.incompatible(this, other);
+        }
+        sketch.merge(approximate.sketch);
+    }
+
+    @Override
+    public void writeState(final DataOutput out, final ValueWriter<? super T> writer) throws IOException {
+        sketch.writeState(out);
+    }
+
+    @Override
+    public void readState(final DataInput in, final ValueReader<? extends T> reader) throws IOException {
+        sketch.readState(in);
+    }
+}
@@ -0,0 +1,50 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares strings in the same order as collator, but by collation keys.
+ * Key of a string is computed once and kept, while the string is one of recently compared.
+ * Not thread-safe, as collator itself.
+ */
+public class CollationKeyComparator implements Comparator<String> {
+    public static final int DEFAULT_CAPACITY = 1 << 12;
+
+    private final Collator collator;
+    private final Map<String, CollationKey> keys;
+
+    /**
+     * Creates comparator.
+     * @param collator collator, that defines order of strings.
+     * @param capacity maximal number of kept keys.
+     */
+    public CollationKeyComparator(final Collator collator, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+        this.collator = collator;
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CollationKey> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public CollationKeyComparator(final Collator collator) {
+        this(collator, DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public int compare(final String s1, final String s2) {
+        return getKey(s1).compareTo(getKey(s2));
+    }
+
+    private CollationKey getKey(final String string) {
+        return keys.computeIfAbsent(string, collator::getCollationKey);
+    }
+}
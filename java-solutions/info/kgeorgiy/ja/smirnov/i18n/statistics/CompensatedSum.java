@@ -0,0 +1,45 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Sum of doubles with running compensation of rounding errors (Neumaier's variant of Kahan summation).
+ * Error doesn't grow with number of values, but, unlike exact sum, sum may differ in the last bits
+ * for different orders of additions and merges.
+ */
+final class CompensatedSum {
+    private double sum = 0.0;
+    private double compensation = 0.0;
+
+    void add(final double x) {
+        final double t = sum + x;
+        if (Math.abs(sum) >= Math.abs(x)) {
+            compensation += (sum - t) + x;
+        } else {
+            compensation += (x - t) + sum;
+        }
+        sum = t;
+    }
+
+    void add(final CompensatedSum other) {
+        add(other.sum);
+        compensation += other.compensation;
+    }
+
+    void writeState(final DataOutput out) throws IOException {
+        out.writeDouble(sum);
+        out.writeDouble(compensation);
+    }
+
+    void readState(final DataInput in) throws IOException {
+        sum = in.readDouble();
+        compensation = in.readDouble();
+    }
+
+    double doubleValue() {
+        // Compensation of infinite sum is NaN
+        return Double.isFinite(sum) ? sum + compensation : sum;
+    }
+}
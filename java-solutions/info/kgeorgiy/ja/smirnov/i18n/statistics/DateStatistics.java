@@ -1,25 +1,144 @@
 package info.kgeorgiy.ja.smirnov.i18n.statistics;
 
-import java.util.Calendar;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigInteger;
 import java.util.Date;
+import java.util.function.Consumer;
 
-public class DateStatistics extends SummarizeStatistics<Date, Date, Date> {
+/**
+ * Statistics of dates, kept as epoch milliseconds.
+ */
+public class DateStatistics implements SummableStatistics<Date, BigInteger, Date>, Consumer<Date> {
+    private final LongUniques uniques;
+    private long count = 0;
+    private long max;
+    private long min;
+    // Sum of milliseconds is 128-bit, so it can't overflow
+    private long sumHigh = 0;
+    private long sumLow = 0;
 
     public DateStatistics() {
-        super((t1, t2) -> {
-            if (t1 == null) {
-                return t2;
-            }
-            final Calendar calendar = Calendar.getInstance();
-            calendar.setTimeInMillis(t1.getTime() + t2.getTime());
-            return new Date(calendar.getTimeInMillis());
-        }, Date::compareTo);
+        this(UniqueCounting.EXACT);
+    }
+
+    public DateStatistics(final UniqueCounting counting) {
+        this.uniques = LongUniques.create(counting);
+    }
+
+    @Override
+    public void accept(final Date date) {
+        acceptMillis(date.getTime());
+    }
+
+    /**
+     * Accepts date given as milliseconds since the epoch.
+     */
+    public void acceptMillis(final long millis) {
+        add(millis >> 63, millis);
+        uniques.add(millis);
+        acceptMinMax(millis, millis);
+        count++;
+    }
+
+    private void add(final long high, final long low) {
+        final long sum = sumLow + low;
+        sumHigh += high + (Long.compareUnsigned(sum, sumLow) < 0 ? 1 : 0);
+        sumLow = sum;
+    }
+
+    private void acceptMinMax(final long otherMin, final long otherMax) {
+        if (count == 0) {
+            min = otherMin;
+            max = otherMax;
+        } else {
+            min = Math.min(min, otherMin);
+            max = Math.max(max, otherMax);
+        }
+    }
+
+    /**
+     * Adds statistics of dates, that follow dates of this statistics.
+     * Result is the same as if all dates were accepted by this statistics.
+     */
+    public void merge(final DateStatistics other) {
+        if (other.count > 0) {
+            acceptMinMax(other.min, other.max);
+        }
+        count += other.count;
+        add(other.sumHigh, other.sumLow);
+        uniques.merge(other.uniques);
+    }
+
+    /**
+     * Writes state of statistics, that may be read by {@link #readState}.
+     */
+    public void writeState(final DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeLong(sumHigh);
+        out.writeLong(sumLow);
+        uniques.writeState(out);
+    }
+
+    /**
+     * Reads state written by {@link #writeState} into empty statistics.
+     */
+    public void readState(final DataInput in) throws IOException {
+        StateIO.checkEmpty(count);
+        final long count = in.readLong();
+        min = in.readLong();
+        max = in.readLong();
+        sumHigh = in.readLong();
+        sumLow = in.readLong();
+        uniques.readState(in);
+        this.count = count;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public long getUniqueCount() {
+        return uniques.size();
+    }
+
+    @Override
+    public Date getMax() {
+        return count == 0 ? null : new Date(max);
+    }
+
+    @Override
+    public Date getMin() {
+        return count == 0 ? null : new Date(min);
+    }
+
+    /**
+     * Gets exact sum of dates as milliseconds since the epoch.
+     * Unlike sum as {@link Date}, it doesn't overflow.
+     */
+    @Override
+    public BigInteger getSum() {
+        if (count == 0) {
+            return null;
+        }
+        return BigInteger.valueOf(sumHigh).shiftLeft(Long.SIZE)
+                .add(BigInteger.valueOf(sumLow).and(BigInteger.ONE.shiftLeft(Long.SIZE).subtract(BigInteger.ONE)));
     }
 
     @Override
-    public Date getAverageImpl() {
-        final Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(getSum().getTime() / getCount());
-        return calendar.getTime();
+    public Date getAverage() {
+        if (count == 0) {
+            return null;
+        }
+        if (sumHigh == sumLow >> 63) {
+            // Sum fits in long
+            return new Date(sumLow / count);
+        }
+        return new Date(getSum().divide(BigInteger.valueOf(count)).longValue());
     }
 }
@@ -1,18 +1,129 @@
 package info.kgeorgiy.ja.smirnov.i18n.statistics;
 
-public class DoubleStatistics extends SummarizeStatistics<Double, Double, Double> {
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.DoubleConsumer;
+
+public class DoubleStatistics implements SummableStatistics<Double, Double, Double>, DoubleConsumer {
+    // Chunks are merged in order, so compensated sum doesn't depend on number of threads
+    private final CompensatedSum sum = new CompensatedSum();
+    private final LongUniques uniques;
+    private final TDigest quantiles = new TDigest();
+    private long count = 0;
+    private double max;
+    private double min;
 
     public DoubleStatistics() {
-        super((s, d) -> {
-            if (s == null) {
-                return d;
-            }
-            return s + d;
-        }, Double::compare);
+        this(UniqueCounting.EXACT);
+    }
+
+    public DoubleStatistics(final UniqueCounting counting) {
+        this.uniques = LongUniques.create(counting);
+    }
+
+    @Override
+    public void accept(final double d) {
+        sum.add(d);
+        // Same equality as Double.equals
+        uniques.add(Double.doubleToLongBits(d));
+        quantiles.add(d);
+        acceptMinMax(d, d);
+        count++;
+    }
+
+    private void acceptMinMax(final double otherMin, final double otherMax) {
+        if (count == 0) {
+            min = otherMin;
+            max = otherMax;
+        } else {
+            min = Double.compare(min, otherMin) < 0 ? min : otherMin;
+            max = Double.compare(max, otherMax) > 0 ? max : otherMax;
+        }
+    }
+
+    /**
+     * Adds statistics of values, that follow values of this statistics.
+     * Result is the same as if all values were accepted by this statistics.
+     */
+    public void merge(final DoubleStatistics other) {
+        if (other.count > 0) {
+            acceptMinMax(other.min, other.max);
+        }
+        count += other.count;
+        sum.add(other.sum);
+        uniques.merge(other.uniques);
+        quantiles.merge(other.quantiles);
+    }
+
+    /**
+     * Writes state of statistics, that may be read by {@link #readState}.
+     */
+    public void writeState(final DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        sum.writeState(out);
+        uniques.writeState(out);
+        quantiles.writeState(out);
+    }
+
+    /**
+     * Reads state written by {@link #writeState} into empty statistics.
+     */
+    public void readState(final DataInput in) throws IOException {
+        StateIO.checkEmpty(count);
+        final long count = in.readLong();
+        min = in.readDouble();
+        max = in.readDouble();
+        sum.readState(in);
+        uniques.readState(in);
+        quantiles.readState(in);
+        this.count = count;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public long getUniqueCount() {
+        return uniques.size();
+    }
+
+    @Override
+    public Double getMax() {
+        return count == 0 ? null : max;
+    }
+
+    @Override
+    public Double getMin() {
+        return count == 0 ? null : min;
+    }
+
+    /**
+     * Gets estimation of quantile of values, that is exact, while there are few different values.
+     * @param q quantile between {@code 0} and {@code 1}, {@code 0.5} for median.
+     * @return estimation of quantile, {@code null} if there are no values.
+     */
+    public Double getQuantile(final double q) {
+        return quantiles.quantile(q);
+    }
+
+    @Override
+    public Double getSum() {
+        if (count == 0) {
+            return null;
+        }
+        return sum.doubleValue();
     }
 
     @Override
-    public Double getAverageImpl() {
-        return getSum() / getCount();
+    public Double getAverage() {
+        if (count == 0) {
+            return null;
+        }
+        return sum.doubleValue() / count;
     }
 }
@@ -0,0 +1,45 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+class ExactUniques<T> implements Uniques<T> {
+    private final Set<T> values = new HashSet<>();
+
+    @Override
+    public void add(final T t) {
+        values.add(t);
+    }
+
+    @Override
+    public long size() {
+        return values.size();
+    }
+
+    @Override
+    public void merge(final Uniques<T> other) {
+        if (!(other instanceof ExactUniques<T> exact)) {
+            throw Uniques.incompatible(this, other);
+        }
+        values.addAll(exact.values);
+    }
+
+    @Override
+    public void writeState(final DataOutput out, final ValueWriter<? super T> writer) throws IOException {
+        out.writeInt(values.size());
+        for (final T value : values) {
+            writer.write(out, value);
+        }
+    }
+
+    @Override
+    public void readState(final DataInput in, final ValueReader<? extends T> reader) throws IOException {
+        StateIO.checkEmpty(values.size());
+        for (int size = in.readInt(); size > 0; size--) {
+            values.add(reader.read(in));
+        }
+    }
+}
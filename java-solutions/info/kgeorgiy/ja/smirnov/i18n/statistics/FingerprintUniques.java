@@ -0,0 +1,392 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Unique values kept as 128-bit fingerprints in open addressing table with linear probing.
+ * When table reaches memory budget, its fingerprints are sorted and spilled to temporary file,
+ * runs are merged with removal of duplicates, when unique values are counted or there are too many runs.
+ * <p>
+ * Runs are immutable, so merged uniques share them, and files are deleted, when runs aren't used anymore.
+ */
+final class FingerprintUniques<T> implements Uniques<T> {
+    private static final long DEFAULT_MEMORY_BUDGET = 16L << 20;
+    private static final int FINGERPRINT_BYTES = 2 * Long.BYTES;
+    private static final int INITIAL_SLOTS = 16;
+    // Runs are merged by this number, so every run has a small buffer
+    private static final int MAX_RUNS = 64;
+    private static final int RUN_BUFFER_SIZE = 1 << 16;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Fingerprint<? super T> fingerprint;
+    private final long[] current = new long[2];
+    private final int maxSlots;
+    // Pairs of high and low halves, (0, 0) marks empty slot, so it is tracked separately as a value
+    private long[] table = new long[2 * INITIAL_SLOTS];
+    private int size;
+    private boolean containsEmpty;
+    private List<Run> runs = new ArrayList<>();
+
+    FingerprintUniques(final Fingerprint<? super T> fingerprint) {
+        this(fingerprint, Long.getLong(UniqueCounting.MEMORY_BUDGET_PROPERTY, DEFAULT_MEMORY_BUDGET));
+    }
+
+    /**
+     * Creates uniques, that keep at most {@code memoryBudget} bytes of fingerprints in memory.
+     */
+    FingerprintUniques(final Fingerprint<? super T> fingerprint, final long memoryBudget) {
+        if (memoryBudget < INITIAL_SLOTS * FINGERPRINT_BYTES) {
+            throw new IllegalArgumentException("Memory budget is too small: " + memoryBudget);
+        }
+        this.fingerprint = fingerprint;
+        this.maxSlots = Integer.highestOneBit((int) Math.min(memoryBudget / FINGERPRINT_BYTES, 1 << 29));
+    }
+
+    @Override
+    public void add(final T t) {
+        fingerprint.fingerprint(t, current);
+        add(current[0], current[1]);
+    }
+
+    private void add(final long high, final long low) {
+        if (high == 0 && low == 0) {
+            containsEmpty = true;
+            return;
+        }
+        if (insert(table, high, low)) {
+            size++;
+            if (size * 2 > table.length / 2) {
+                if (table.length / 2 < maxSlots) {
+                    rehash();
+                } else {
+                    spill();
+                }
+            }
+        }
+    }
+
+    // Slot is given by the highest bits, so slots are almost in order of fingerprints
+    private static boolean insert(final long[] table, final long high, final long low) {
+        final int slots = table.length / 2;
+        for (int i = (int) (high >>> (Long.SIZE - Integer.numberOfTrailingZeros(slots))); ; i = (i + 1) & (slots - 1)) {
+            if (table[2 * i] == 0 && table[2 * i + 1] == 0) {
+                table[2 * i] = high;
+                table[2 * i + 1] = low;
+                return true;
+            }
+            if (table[2 * i] == high && table[2 * i + 1] == low) {
+                return false;
+            }
+        }
+    }
+
+    private void rehash() {
+        final long[] rehashed = new long[table.length * 2];
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != 0 || table[i + 1] != 0) {
+                insert(rehashed, table[i], table[i + 1]);
+            }
+        }
+        table = rehashed;
+    }
+
+    private void spill() {
+        int n = 0;
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != 0 || table[i + 1] != 0) {
+                table[2 * n] = table[i];
+                table[2 * n + 1] = table[i + 1];
+                n++;
+            }
+        }
+        // Fingerprints are out of order only within clusters and after wrap around, so insertion sort is linear
+        for (int i = 1; i < n; i++) {
+            final long high = table[2 * i];
+            final long low = table[2 * i + 1];
+            int j = i;
+            for (; j > 0 && compare(table[2 * j - 2], table[2 * j - 1], high, low) > 0; j--) {
+                table[2 * j] = table[2 * j - 2];
+                table[2 * j + 1] = table[2 * j - 1];
+            }
+            table[2 * j] = high;
+            table[2 * j + 1] = low;
+        }
+        try {
+            final Run run = Run.create();
+            try (final DataOutputStream out = run.output()) {
+                for (int i = 0; i < 2 * n; i++) {
+                    out.writeLong(table[i]);
+                }
+            }
+            runs.add(run.complete(n));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Arrays.fill(table, 0);
+        size = 0;
+        if (runs.size() >= MAX_RUNS) {
+            runs = new ArrayList<>(List.of(mergeRuns(runs)));
+        }
+    }
+
+    private static int compare(final long high1, final long low1, final long high2, final long low2) {
+        final int compare = Long.compareUnsigned(high1, high2);
+        return compare != 0 ? compare : Long.compareUnsigned(low1, low2);
+    }
+
+    // Merges sorted runs into one run without duplicates
+    private static Run mergeRuns(final List<Run> runs) {
+        if (runs.size() > MAX_RUNS) {
+            final List<Run> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MAX_RUNS) {
+                merged.add(mergeRuns(runs.subList(i, Math.min(i + MAX_RUNS, runs.size()))));
+            }
+            return mergeRuns(merged);
+        }
+        final PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size());
+        try {
+            final Run run = Run.create();
+            long size = 0;
+            try (final DataOutputStream out = run.output()) {
+                for (final Run source : runs) {
+                    final RunReader reader = new RunReader(source);
+                    if (reader.next()) {
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+                boolean first = true;
+                long high = 0;
+                long low = 0;
+                while (!queue.isEmpty()) {
+                    final RunReader reader = queue.poll();
+                    if (first || reader.high != high || reader.low != low) {
+                        first = false;
+                        high = reader.high;
+                        low = reader.low;
+                        out.writeLong(high);
+                        out.writeLong(low);
+                        size++;
+                    }
+                    if (reader.next()) {
+                        queue.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+            }
+            return run.complete(size);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (final RunReader reader : queue) {
+                reader.close();
+            }
+        }
+    }
+
+    // Puts all fingerprints into one run
+    private void spillAll() {
+        if (size > 0) {
+            spill();
+        }
+        if (runs.size() > 1) {
+            runs = new ArrayList<>(List.of(mergeRuns(runs)));
+        }
+    }
+
+    @Override
+    public long size() {
+        if (!runs.isEmpty()) {
+            spillAll();
+        }
+        final long values = runs.isEmpty() ? size : runs.get(0).size;
+        return values + (containsEmpty ? 1 : 0);
+    }
+
+    @Override
+    public void merge(final Uniques<T> other) {
+        if (!(other instanceof FingerprintUniques<T> fingerprints)) {
+            throw Uniques.incompatible(this, other);
+        }
+        final long[] table = fingerprints.table;
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] != 0 || table[i + 1] != 0) {
+                add(table[i], table[i + 1]);
+            }
+        }
+        containsEmpty |= fingerprints.containsEmpty;
+        runs.addAll(fingerprints.runs);
+        if (runs.size() >= MAX_RUNS) {
+            runs = new ArrayList<>(List.of(mergeRuns(runs)));
+        }
+    }
+
+    /**
+     * Writes fingerprints, values aren't kept, so writer isn't used.
+     */
+    @Override
+    public void writeState(final DataOutput out, final ValueWriter<? super T> writer) throws IOException {
+        out.writeBoolean(containsEmpty);
+        if (runs.isEmpty()) {
+            out.writeLong(size);
+            for (int i = 0; i < table.length; i += 2) {
+                if (table[i] != 0 || table[i + 1] != 0) {
+                    out.writeLong(table[i]);
+                    out.writeLong(table[i + 1]);
+                }
+            }
+            return;
+        }
+        spillAll();
+        final Run run = runs.get(0);
+        out.writeLong(run.size);
+        try (final RunReader reader = new RunReader(run)) {
+            while (reader.next()) {
+                out.writeLong(reader.high);
+                out.writeLong(reader.low);
+            }
+        }
+    }
+
+    @Override
+    public void readState(final DataInput in, final ValueReader<? extends T> reader) throws IOException {
+        StateIO.checkEmpty(size());
+        final boolean containsEmpty = in.readBoolean();
+        final long size = in.readLong();
+        if (size < 0) {
+            throw new IOException("Negative number of fingerprints: " + size);
+        }
+        for (long i = 0; i < size; i++) {
+            add(in.readLong(), in.readLong());
+        }
+        this.containsEmpty = containsEmpty;
+    }
+
+    /**
+     * Computes 128-bit fingerprint of value.
+     */
+    @FunctionalInterface
+    interface Fingerprint<T> {
+        /**
+         * Writes high and low halves of fingerprint to the first two elements of array.
+         */
+        void fingerprint(T value, long[] fingerprint);
+    }
+
+    // Temporary file of sorted fingerprints
+    private static final class Run {
+        private final Path path;
+        private long size;
+
+        private Run(final Path path) {
+            this.path = path;
+        }
+
+        static Run create() throws IOException {
+            final Path path = Files.createTempFile(RunDirectory.PATH, "uniques", ".run");
+            final Run run = new Run(path);
+            CLEANER.register(run, () -> delete(path));
+            return run;
+        }
+
+        DataOutputStream output() throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), RUN_BUFFER_SIZE));
+        }
+
+        Run complete(final long size) {
+            this.size = size;
+            return this;
+        }
+
+        private static void delete(final Path path) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (final IOException ignored) {
+                // Temporary directory is cleaned anyway
+            }
+        }
+    }
+
+    // Temporary directory of runs, created on the first spill. Runs, that aren't deleted yet, are deleted on exit
+    private static final class RunDirectory {
+        private static final Path PATH = create();
+
+        private static Path create() {
+            try {
+                final Path path = Files.createTempDirectory("uniques");
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try (final Stream<Path> runs = Files.list(path)) {
+                        runs.forEach(Run::delete);
+                    } catch (final IOException ignored) {
+                        // Temporary directory is cleaned anyway
+                    }
+                    Run.delete(path);
+                }));
+                return path;
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class RunReader implements Comparable<RunReader>, AutoCloseable {
+        private final DataInputStream in;
+        // Keeps run and its file, while it is read
+        private final Run run;
+        private long remaining;
+        private long high;
+        private long low;
+
+        RunReader(final Run run) throws IOException {
+            this.run = run;
+            this.remaining = run.size;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.path), RUN_BUFFER_SIZE));
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            try {
+                high = in.readLong();
+                low = in.readLong();
+            } catch (final EOFException e) {
+                throw new IOException("Run " + run.path + " is truncated", e);
+            }
+            return true;
+        }
+
+        @Override
+        public int compareTo(final RunReader other) {
+            return compare(high, low, other.high, other.low);
+        }
+
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (final IOException ignored) {
+                // Run is only read
+            }
+        }
+    }
+}
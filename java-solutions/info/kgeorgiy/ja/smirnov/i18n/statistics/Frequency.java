@@ -0,0 +1,16 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+/**
+ * Estimated number of occurrences of value.
+ * @param value counted value.
+ * @param count number of occurrences, that may be overestimated by at most {@code error}.
+ * @param error maximal overestimation of count, {@code 0} if count is exact.
+ */
+public record Frequency<T>(T value, long count, long error) {
+    /**
+     * Finds out whether value surely occurred more than once, that is, whether count is greater than one without error.
+     */
+    public boolean isRepeated() {
+        return count - error > 1;
+    }
+}
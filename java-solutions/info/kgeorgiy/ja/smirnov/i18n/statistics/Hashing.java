@@ -0,0 +1,76 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+/**
+ * 64-bit hashes for sketches, that need uniformly distributed bits.
+ */
+final class Hashing {
+    private Hashing() {
+    }
+
+    /**
+     * Finalizer of MurmurHash3, every input bit affects every output bit.
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    static long hash(final CharSequence chars) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < chars.length(); i++) {
+            h = (h ^ chars.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h ^ chars.length());
+    }
+
+    /**
+     * MurmurHash3 x64 128 of UTF-16LE encoding of chars, collisions of different strings are practically impossible.
+     * @param chars hashed chars.
+     * @param fingerprint array, that receives high and low halves of hash.
+     */
+    static void fingerprint(final CharSequence chars, final long[] fingerprint) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        final int length = chars.length();
+        long h1 = 0;
+        long h2 = 0;
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            final long k1 = block(chars, i, 4) * c1;
+            h1 ^= Long.rotateLeft(k1, 31) * c2;
+            h1 = (Long.rotateLeft(h1, 27) + h2) * 5 + 0x52dce729;
+            final long k2 = block(chars, i + 4, 4) * c2;
+            h2 ^= Long.rotateLeft(k2, 33) * c1;
+            h2 = (Long.rotateLeft(h2, 31) + h1) * 5 + 0x38495ab5;
+        }
+        if (i + 4 < length) {
+            h2 ^= Long.rotateLeft(block(chars, i + 4, length - i - 4) * c2, 33) * c1;
+        }
+        if (i < length) {
+            h1 ^= Long.rotateLeft(block(chars, i, Math.min(4, length - i)) * c1, 31) * c2;
+        }
+        h1 ^= 2L * length;
+        h2 ^= 2L * length;
+        h1 += h2;
+        h2 += h1;
+        h1 = mix(h1);
+        h2 = mix(h2);
+        h1 += h2;
+        h2 += h1;
+        fingerprint[0] = h1;
+        fingerprint[1] = h2;
+    }
+
+    // Little-endian chars as long
+    private static long block(final CharSequence chars, final int from, final int count) {
+        long block = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            block = block << Character.SIZE | chars.charAt(from + i);
+        }
+        return block;
+    }
+}
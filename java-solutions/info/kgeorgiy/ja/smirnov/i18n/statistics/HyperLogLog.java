@@ -0,0 +1,62 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * HyperLogLog cardinality sketch over 64-bit hashes.
+ * Standard error of estimate is {@code 1.04 / sqrt(2^PRECISION)}, that is about 0.8%.
+ */
+final class HyperLogLog {
+    private static final int PRECISION = 14;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * Adds value by its hash, hash bits should be uniformly distributed.
+     */
+    void add(final long hash) {
+        final int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        // Guard bit limits rank, when all other bits are zero
+        final int rank = Long.numberOfLeadingZeros(hash << PRECISION | 1L << (PRECISION - 1)) + 1;
+        if (registers[index] < rank) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    void merge(final HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] < other.registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    void writeState(final DataOutput out) throws IOException {
+        out.write(registers);
+    }
+
+    void readState(final DataInput in) throws IOException {
+        in.readFully(registers);
+    }
+
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (final byte register : registers) {
+            sum += Double.longBitsToDouble((long) (Double.MAX_EXPONENT - register) << 52);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more precise for small cardinalities
+            return Math.round(REGISTERS * Math.log((double) REGISTERS / zeros));
+        }
+        return Math.round(estimate);
+    }
+}
@@ -1,17 +1,83 @@
 package info.kgeorgiy.ja.smirnov.i18n.statistics;
 
-public class IntStatistics extends SummarizeStatistics<Integer, Long, Double>{
+import java.util.function.IntConsumer;
+
+public class IntStatistics implements SummableStatistics<Integer, Long, Double>, IntConsumer {
+    private final LongUniques uniques;
+    private long count = 0;
+    private long sum = 0;
+    private int max;
+    private int min;
+
     public IntStatistics() {
-        super((s, t1) -> {
-            if (s == null) {
-                return t1.longValue();
-            }
-            return s + t1;
-        }, Integer::compare);
+        this(UniqueCounting.EXACT);
+    }
+
+    public IntStatistics(final UniqueCounting counting) {
+        this.uniques = LongUniques.create(counting);
+    }
+
+    @Override
+    public void accept(final int value) {
+        sum += value;
+        uniques.add(value);
+        acceptMinMax(value, value);
+        count++;
+    }
+
+    private void acceptMinMax(final int otherMin, final int otherMax) {
+        if (count == 0) {
+            min = otherMin;
+            max = otherMax;
+        } else {
+            min = Math.min(min, otherMin);
+            max = Math.max(max, otherMax);
+        }
+    }
+
+    /**
+     * Adds statistics of values, that follow values of this statistics.
+     * Result is the same as if all values were accepted by this statistics.
+     */
+    public void merge(final IntStatistics other) {
+        if (other.count > 0) {
+            acceptMinMax(other.min, other.max);
+        }
+        count += other.count;
+        sum += other.sum;
+        uniques.merge(other.uniques);
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public long getUniqueCount() {
+        return uniques.size();
+    }
+
+    @Override
+    public Integer getMax() {
+        return count == 0 ? null : max;
+    }
+
+    @Override
+    public Integer getMin() {
+        return count == 0 ? null : min;
+    }
+
+    @Override
+    public Long getSum() {
+        return count == 0 ? null : sum;
     }
 
     @Override
-    protected Double getAverageImpl() {
-        return getSum().doubleValue() / getCount();
+    public Double getAverage() {
+        if (count == 0) {
+            return null;
+        }
+        return (double) sum / count;
     }
 }
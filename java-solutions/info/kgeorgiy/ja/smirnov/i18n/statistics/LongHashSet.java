@@ -0,0 +1,93 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Open addressing set of longs with linear probing.
+ */
+final class LongHashSet implements LongUniques {
+    // Marks empty cells, so it is tracked separately as a value
+    private static final long EMPTY = 0;
+
+    private long[] keys = new long[16];
+    private int size = 0;
+    private boolean containsEmpty = false;
+
+    @Override
+    public void add(final long value) {
+        if (value == EMPTY) {
+            containsEmpty = true;
+            return;
+        }
+        if (insert(keys, value)) {
+            size++;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+        }
+    }
+
+    private static boolean insert(final long[] keys, final long value) {
+        final int mask = keys.length - 1;
+        for (int i = (int) Hashing.mix(value) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == EMPTY) {
+                keys[i] = value;
+                return true;
+            }
+            if (keys[i] == value) {
+                return false;
+            }
+        }
+    }
+
+    private void rehash() {
+        final long[] rehashed = new long[keys.length * 2];
+        for (final long key : keys) {
+            if (key != EMPTY) {
+                insert(rehashed, key);
+            }
+        }
+        keys = rehashed;
+    }
+
+    @Override
+    public long size() {
+        return size + (containsEmpty ? 1 : 0);
+    }
+
+    @Override
+    public void merge(final LongUniques other) {
+        if (!(other instanceof LongHashSet set)) {
+            throw Uniques.incompatible(this, other);
+        }
+        for (final long key : set.keys) {
+            if (key != EMPTY) {
+                add(key);
+            }
+        }
+        containsEmpty |= set.containsEmpty;
+    }
+
+    @Override
+    public void writeState(final DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeBoolean(containsEmpty);
+        for (final long key : keys) {
+            if (key != EMPTY) {
+                out.writeLong(key);
+            }
+        }
+    }
+
+    @Override
+    public void readState(final DataInput in) throws IOException {
+        StateIO.checkEmpty(size());
+        final int size = in.readInt();
+        containsEmpty = in.readBoolean();
+        for (int i = 0; i < size; i++) {
+            add(in.readLong());
+        }
+    }
+}
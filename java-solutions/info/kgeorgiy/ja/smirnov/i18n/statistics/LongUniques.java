@@ -0,0 +1,34 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Unique values of primitive statistics, values are kept without boxing.
+ */
+interface LongUniques {
+    void add(long value);
+
+    long size();
+
+    /**
+     * Adds all values of other uniques of the same kind.
+     */
+    void merge(LongUniques other);
+
+    void writeState(DataOutput out) throws IOException;
+
+    /**
+     * Reads state written by {@link #writeState} into empty uniques.
+     */
+    void readState(DataInput in) throws IOException;
+
+    static LongUniques create(final UniqueCounting counting) {
+        return switch (counting) {
+            // Longs are as short as fingerprints
+            case EXACT, FINGERPRINT -> new LongHashSet();
+            case APPROXIMATE -> new ApproximateLongUniques();
+        };
+    }
+}
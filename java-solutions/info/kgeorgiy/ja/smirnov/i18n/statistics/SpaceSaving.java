@@ -0,0 +1,192 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving sketch of the most frequent values, that keeps at most {@code capacity} counters.
+ * When there is no free counter, new value takes the counter with the least count,
+ * and the count becomes the error of the new value.
+ * <p>
+ * Counts are exact, while there are at most {@code capacity} different values.
+ * Otherwise count of value is overestimated by at most its error, which is at most {@code n / capacity}
+ * for {@code n} accepted values, so every value with greater count is kept.
+ * Merged sketches have the same bounds, but not the same counters as the sketch of all values.
+ */
+final class SpaceSaving<T> {
+    private final int capacity;
+    private final Map<T, Counter<T>> counters = new HashMap<>();
+    // Min-heap by count
+    private final Counter<T>[] heap;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    SpaceSaving(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.heap = (Counter<T>[]) new Counter<?>[capacity];
+    }
+
+    void add(final T value) {
+        Counter<T> counter = counters.get(value);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.index);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter<>(value, 1, 0);
+            counters.put(value, counter);
+            counter.index = size;
+            heap[size++] = counter;
+            siftUp(counter.index);
+            return;
+        }
+        counter = heap[0];
+        counters.remove(counter.value);
+        counter.value = value;
+        counter.error = counter.count++;
+        counters.put(value, counter);
+        siftDown(0);
+    }
+
+    /**
+     * Adds counters of other sketch. Value, that isn't counted by a full sketch,
+     * may have occurred there as many times as the least count of the sketch.
+     */
+    void merge(final SpaceSaving<T> other) {
+        final long minCount = minCount();
+        final long otherMinCount = other.minCount();
+        final List<Counter<T>> merged = new ArrayList<>(size + other.size);
+        for (int i = 0; i < size; i++) {
+            final Counter<T> counter = heap[i];
+            final Counter<T> same = other.counters.get(counter.value);
+            if (same == null) {
+                merged.add(new Counter<>(counter.value, counter.count + otherMinCount, counter.error + otherMinCount));
+            } else {
+                merged.add(new Counter<>(counter.value, counter.count + same.count, counter.error + same.error));
+            }
+        }
+        for (int i = 0; i < other.size; i++) {
+            final Counter<T> counter = other.heap[i];
+            if (!counters.containsKey(counter.value)) {
+                merged.add(new Counter<>(counter.value, counter.count + minCount, counter.error + minCount));
+            }
+        }
+        merged.sort(Comparator.<Counter<T>>comparingLong(counter -> counter.count).reversed()
+                .thenComparingLong(counter -> counter.error));
+        rebuild(merged.subList(0, Math.min(capacity, merged.size())));
+    }
+
+    private long minCount() {
+        return size == capacity ? heap[0].count : 0;
+    }
+
+    private void rebuild(final List<Counter<T>> counters) {
+        this.counters.clear();
+        Arrays.fill(heap, null);
+        size = 0;
+        for (final Counter<T> counter : counters) {
+            this.counters.put(counter.value, counter);
+            counter.index = size;
+            heap[size++] = counter;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Gets at most {@code limit} values with the greatest counts,
+     * values with the same count are ordered by comparator.
+     */
+    List<Frequency<T>> top(final int limit, final Comparator<? super T> comparator) {
+        return Arrays.stream(heap, 0, size)
+                .map(counter -> new Frequency<>(counter.value, counter.count, counter.error))
+                .sorted(Comparator.<Frequency<T>>comparingLong(Frequency::count).reversed()
+                        .thenComparing(Frequency::value, comparator))
+                .limit(limit)
+                .toList();
+    }
+
+    void writeState(final DataOutput out, final Uniques.ValueWriter<? super T> writer) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            writer.write(out, heap[i].value);
+            out.writeLong(heap[i].count);
+            out.writeLong(heap[i].error);
+        }
+    }
+
+    void readState(final DataInput in, final Uniques.ValueReader<? extends T> reader) throws IOException {
+        StateIO.checkEmpty(size);
+        final int size = in.readInt();
+        if (size < 0 || size > capacity) {
+            throw new IOException("Invalid number of counters: " + size);
+        }
+        final List<Counter<T>> counters = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            counters.add(new Counter<>(reader.read(in), in.readLong(), in.readLong()));
+        }
+        rebuild(counters);
+    }
+
+    private void siftUp(int i) {
+        final Counter<T> counter = heap[i];
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(counter, i);
+    }
+
+    private void siftDown(int i) {
+        final Counter<T> counter = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(counter, i);
+    }
+
+    private void place(final Counter<T> counter, final int i) {
+        heap[i] = counter;
+        counter.index = i;
+    }
+
+    private static final class Counter<T> {
+        private T value;
+        private long count;
+        private long error;
+        private int index;
+
+        private Counter(final T value, final long count, final long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
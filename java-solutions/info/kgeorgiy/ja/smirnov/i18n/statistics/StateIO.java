@@ -0,0 +1,50 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encoding of values in saved state of statistics.
+ */
+final class StateIO {
+    private StateIO() {
+    }
+
+    /**
+     * Writes string as number of chars and chars, so it may be of any length, unlike {@link DataOutput#writeUTF}.
+     */
+    static void writeString(final DataOutput out, final String string) throws IOException {
+        out.writeInt(string.length());
+        out.writeChars(string);
+    }
+
+    static String readString(final DataInput in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative string length: " + length);
+        }
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+        return new String(chars);
+    }
+
+    static void writeOptionalString(final DataOutput out, final String string) throws IOException {
+        out.writeBoolean(string != null);
+        if (string != null) {
+            writeString(out, string);
+        }
+    }
+
+    static String readOptionalString(final DataInput in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    static void checkEmpty(final long count) {
+        if (count != 0) {
+            throw new IllegalStateException("State may be read only into empty statistics");
+        }
+    }
+}
@@ -1,27 +1,129 @@
 package info.kgeorgiy.ja.smirnov.i18n.statistics;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Comparator;
 import java.util.IntSummaryStatistics;
+import java.util.List;
 
 public class StringStatistics extends AbstractStatistics<String> {
+    /**
+     * Number of counters of the most frequent strings. Counts are exact for at most so many different strings.
+     */
+    public static final int FREQUENCY_CAPACITY = 1024;
+    /**
+     * Number of the most frequent strings, that are reported.
+     */
+    public static final int MOST_FREQUENT_COUNT = 10;
+    // Bounded in every counting mode, so table of recently accepted strings does not grow with text
+    private static final int ACCEPTED_CAPACITY = 1 << 12;
+
+    private final SpaceSaving<String> frequencies = new SpaceSaving<>(FREQUENCY_CAPACITY);
+    private final TDigest lengthQuantiles = new TDigest();
     private final IntSummaryStatistics lengthStatistics = new IntSummaryStatistics();
     private String maxLengthString;
     private String minLengthString;
+    // Strings accepted by this statistics, they are found by chars of token without making a string
+    private final StringTable accepted;
 
     public StringStatistics(final Comparator<? super String> comparator) {
-        super(comparator);
+        this(comparator, UniqueCounting.EXACT);
     }
 
+    public StringStatistics(final Comparator<? super String> comparator, final UniqueCounting counting) {
+        super(comparator, counting, Hashing::hash, Hashing::fingerprint);
+        this.accepted = new StringTable(ACCEPTED_CAPACITY);
+    }
 
     @Override
     public void accept(final String string) {
+        accept((CharSequence) string);
+    }
+
+    /**
+     * Accepts chars of token, that may be changed afterwards, as a string.
+     * String is made only if token wasn't accepted recently, otherwise token can't change
+     * min, max and strings of min and max length, so only counters are updated.
+     */
+    public void accept(final CharSequence token) {
+        final long hash = Hashing.hash(token);
+        final String string = accepted.get(token, hash);
+        if (string == null) {
+            final String value = token.toString();
+            accepted.add(value, hash);
+            acceptNew(value);
+        } else {
+            final int length = string.length();
+            lengthStatistics.accept(length);
+            lengthQuantiles.add(length);
+            frequencies.add(string);
+            acceptRepeated(string);
+        }
+    }
+
+    private void acceptNew(final String string) {
         final int length = string.length();
         maxLengthString = length > lengthStatistics.getMax() ? string : maxLengthString;
         minLengthString = length < lengthStatistics.getMin() ? string : minLengthString;
         lengthStatistics.accept(length);
+        lengthQuantiles.add(length);
+        frequencies.add(string);
         super.accept(string);
     }
 
+    public void merge(final StringStatistics other) {
+        if (other.getMaxLength() > getMaxLength()) {
+            maxLengthString = other.maxLengthString;
+        }
+        if (other.getMinLength() < getMinLength()) {
+            minLengthString = other.minLengthString;
+        }
+        lengthStatistics.combine(other.lengthStatistics);
+        lengthQuantiles.merge(other.lengthQuantiles);
+        frequencies.merge(other.frequencies);
+        super.merge(other);
+    }
+
+    /**
+     * Writes state of statistics, that may be read by {@link #readState}.
+     */
+    public void writeState(final DataOutput out) throws IOException {
+        super.writeState(out, StateIO::writeString);
+        out.writeLong(lengthStatistics.getSum());
+        out.writeInt(lengthStatistics.getMin());
+        out.writeInt(lengthStatistics.getMax());
+        StateIO.writeOptionalString(out, minLengthString);
+        StateIO.writeOptionalString(out, maxLengthString);
+        lengthQuantiles.writeState(out);
+        frequencies.writeState(out, StateIO::writeString);
+    }
+
+    /**
+     * Reads state written by {@link #writeState} into empty statistics.
+     * Order of strings is taken from comparator of this statistics.
+     */
+    public void readState(final DataInput in) throws IOException {
+        super.readState(in, StateIO::readString);
+        final long sum = in.readLong();
+        final int min = in.readInt();
+        final int max = in.readInt();
+        lengthStatistics.combine(new IntSummaryStatistics(count, min, max, sum));
+        minLengthString = StateIO.readOptionalString(in);
+        maxLengthString = StateIO.readOptionalString(in);
+        lengthQuantiles.readState(in);
+        frequencies.readState(in, StateIO::readString);
+    }
+
+    /**
+     * Gets at most {@link #MOST_FREQUENT_COUNT} strings with the greatest counts,
+     * strings with the same count are in order of comparator.
+     * Counts are exact, while there are at most {@link #FREQUENCY_CAPACITY} different strings.
+     */
+    public List<Frequency<String>> getMostFrequent() {
+        return frequencies.top(MOST_FREQUENT_COUNT, comparator);
+    }
+
     public String getMaxLengthString() {
         return maxLengthString;
     }
@@ -38,6 +140,15 @@ public class StringStatistics extends AbstractStatistics<String> {
         return lengthStatistics.getMin();
     }
 
+    /**
+     * Gets estimation of quantile of lengths, that is exact, while there are few different lengths.
+     * @param q quantile between {@code 0} and {@code 1}, {@code 0.5} for median.
+     * @return estimation of quantile, {@code null} if there are no strings.
+     */
+    public Double getLengthQuantile(final double q) {
+        return lengthQuantiles.quantile(q);
+    }
+
     public Double getAverageLength() {
         if (lengthStatistics.getCount() == 0) {
             return null;
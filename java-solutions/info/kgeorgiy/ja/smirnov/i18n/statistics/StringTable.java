@@ -0,0 +1,74 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing set of strings with linear probing, that is searched by chars of any {@link CharSequence},
+ * so a string isn't made to find out, that it was already seen.
+ * When table reaches its capacity, it is cleared, so it keeps only recently added strings.
+ */
+final class StringTable {
+    private final int capacity;
+    private String[] values = new String[16];
+    private long[] hashes = new long[16];
+    private int size;
+
+    /**
+     * Creates table of at most {@code capacity} strings.
+     */
+    StringTable(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets string with the same chars.
+     * @param chars searched chars.
+     * @param hash {@link Hashing#hash} of chars.
+     * @return string with the same chars, {@code null} if there is no such string.
+     */
+    String get(final CharSequence chars, final long hash) {
+        final int mask = values.length - 1;
+        for (int i = (int) hash & mask; values[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && values[i].contentEquals(chars)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds string, that isn't in the table.
+     */
+    void add(final String value, final long hash) {
+        if (size == capacity) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+        insert(values, hashes, value, hash);
+        if (++size * 2 > values.length) {
+            rehash();
+        }
+    }
+
+    private static void insert(final String[] values, final long[] hashes, final String value, final long hash) {
+        final int mask = values.length - 1;
+        int i = (int) hash & mask;
+        while (values[i] != null) {
+            i = (i + 1) & mask;
+        }
+        values[i] = value;
+        hashes[i] = hash;
+    }
+
+    private void rehash() {
+        final String[] rehashedValues = new String[values.length * 2];
+        final long[] rehashedHashes = new long[hashes.length * 2];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                insert(rehashedValues, rehashedHashes, values[i], hashes[i]);
+            }
+        }
+        values = rehashedValues;
+        hashes = rehashedHashes;
+    }
+}
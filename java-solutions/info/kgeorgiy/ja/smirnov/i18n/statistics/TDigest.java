@@ -0,0 +1,265 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest of doubles: sorted centroids of mean and weight, that estimate quantiles.
+ * Accepted values are buffered and merged into centroids in batches.
+ * <p>
+ * Equal values are always kept in one centroid, so digest is exact, while there are at most
+ * {@link #EXACT_CENTROIDS} different values, and doesn't depend on order of values and merges.
+ * Otherwise centroids are merged with scale function {@code k(q) = compression / (2 pi) * asin(2q - 1)},
+ * so there are about {@code COMPRESSION / 2} centroids and centroids near the tails are small.
+ * Quantiles of merged centroids are interpolated between their centers, and minimal and maximal values.
+ */
+final class TDigest {
+    static final double COMPRESSION = 200;
+    static final int EXACT_CENTROIDS = 512;
+    private static final int BUFFER_SIZE = 256;
+    private static final int INITIAL_SIZE = 8;
+
+    private double[] means = new double[INITIAL_SIZE];
+    private long[] weights = new long[INITIAL_SIZE];
+    private int size;
+    private double[] scratchMeans = new double[INITIAL_SIZE];
+    private long[] scratchWeights = new long[INITIAL_SIZE];
+    private double[] buffer = new double[INITIAL_SIZE];
+    private int buffered;
+    private long count;
+    // Some centroid has different values
+    private boolean approximate;
+    private boolean fromRight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    void add(final double value) {
+        if (buffered == buffer.length) {
+            if (buffered == BUFFER_SIZE) {
+                compress();
+            } else {
+                buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, BUFFER_SIZE));
+            }
+        }
+        buffer[buffered++] = value;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    void merge(final TDigest other) {
+        other.compress();
+        compress(other.means, other.weights, other.size);
+        count += other.count;
+        approximate |= other.approximate;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Gets estimation of quantile. Exact quantile is interpolated between the nearest ranks, as
+     * {@code sorted[floor(r)] + (sorted[ceil(r)] - sorted[floor(r)]) * (r - floor(r))} for {@code r = q * (count - 1)}.
+     * @param q quantile between {@code 0} and {@code 1}.
+     * @return estimation of quantile, {@code null} if there are no values.
+     */
+    Double quantile(final double q) {
+        if (!(0 <= q && q <= 1)) {
+            throw new IllegalArgumentException("Quantile should be between 0 and 1: " + q);
+        }
+        if (count == 0) {
+            return null;
+        }
+        compress();
+        if (approximate) {
+            return interpolate(q * count);
+        }
+        final double rank = q * (count - 1);
+        final long lower = (long) Math.floor(rank);
+        final double fraction = rank - lower;
+        int i = 0;
+        long before = 0;
+        while (before + weights[i] <= lower) {
+            before += weights[i++];
+        }
+        final double value = means[i];
+        if (fraction == 0 || lower + 1 < before + weights[i]) {
+            return value;
+        }
+        return Double.isInfinite(value) ? value : value + (means[i + 1] - value) * fraction;
+    }
+
+    // Centroid with weight w covers ranks from its start to start + w, its mean is at the center
+    private double interpolate(final double rank) {
+        double center = weights[0] / 2.0;
+        if (rank <= center) {
+            return min + (means[0] - min) * (center == 0 ? 0 : rank / center);
+        }
+        for (int i = 1; i < size; i++) {
+            final double next = center + (weights[i - 1] + weights[i]) / 2.0;
+            if (rank <= next) {
+                return means[i - 1] + (means[i] - means[i - 1]) * (rank - center) / (next - center);
+            }
+            center = next;
+        }
+        return means[size - 1] + (max - means[size - 1]) * (rank - center) / (count - center);
+    }
+
+    private void compress() {
+        if (buffered > 0) {
+            Arrays.sort(buffer, 0, buffered);
+            final int values = buffered;
+            buffered = 0;
+            compress(buffer, null, values);
+        }
+    }
+
+    // Merges sorted centroids into centroids of this digest, absent weights are ones
+    private void compress(final double[] otherMeans, final long[] otherWeights, final int otherSize) {
+        if (scratchMeans.length < size + otherSize) {
+            scratchMeans = new double[Math.max(size + otherSize, scratchMeans.length * 2)];
+            scratchWeights = new long[scratchMeans.length];
+        }
+        final double[] mergedMeans = scratchMeans;
+        final long[] mergedWeights = scratchWeights;
+        int merged = 0;
+        for (int i = 0, j = 0; i < size || j < otherSize; ) {
+            final boolean own = j == otherSize || i < size && Double.compare(means[i], otherMeans[j]) <= 0;
+            final double mean;
+            final long weight;
+            if (own) {
+                mean = means[i];
+                weight = weights[i++];
+            } else {
+                mean = otherMeans[j];
+                weight = otherWeights == null ? 1 : otherWeights[j];
+                j++;
+            }
+            if (merged > 0 && Double.compare(mergedMeans[merged - 1], mean) == 0) {
+                mergedWeights[merged - 1] += weight;
+            } else {
+                mergedMeans[merged] = mean;
+                mergedWeights[merged++] = weight;
+            }
+        }
+        // Arrays are swapped, so they are allocated only when digest grows
+        scratchMeans = means;
+        scratchWeights = weights;
+        means = mergedMeans;
+        weights = mergedWeights;
+        size = merged;
+        if (size > EXACT_CENTROIDS) {
+            mergeCentroids();
+        }
+    }
+
+    // Centroids are merged from the left and from the right in turn, so errors of greedy merging don't accumulate
+    private void mergeCentroids() {
+        approximate = true;
+        fromRight = !fromRight;
+        if (fromRight) {
+            reverse();
+        }
+        final long total = Arrays.stream(weights, 0, size).sum();
+        int merged = 0;
+        long before = 0;
+        double limit = limit(0, total);
+        for (int i = 1; i < size; i++) {
+            final long weight = weights[merged] + weights[i];
+            if (before + weight <= limit) {
+                weights[merged] = weight;
+                means[merged] += (means[i] - means[merged]) * weights[i] / weight;
+            } else {
+                before += weights[merged];
+                limit = limit(before, total);
+                merged++;
+                means[merged] = means[i];
+                weights[merged] = weights[i];
+            }
+        }
+        size = merged + 1;
+        if (fromRight) {
+            reverse();
+        }
+    }
+
+    private void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            final double mean = means[i];
+            means[i] = means[j];
+            means[j] = mean;
+            final long weight = weights[i];
+            weights[i] = weights[j];
+            weights[j] = weight;
+        }
+    }
+
+    // Greatest total weight before end of centroid, that starts after the given weight
+    private static double limit(final long before, final long total) {
+        final double k = COMPRESSION / (2 * Math.PI) * Math.asin(2.0 * before / total - 1);
+        return total * (Math.sin(Math.min(k + 1, COMPRESSION / 4) * 2 * Math.PI / COMPRESSION) + 1) / 2;
+    }
+
+    /**
+     * Writes centroids and buffered values as they are, so writing doesn't change later estimations.
+     */
+    void writeState(final DataOutput out) throws IOException {
+        out.writeBoolean(approximate);
+        out.writeBoolean(fromRight);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(means[i]);
+            out.writeLong(weights[i]);
+        }
+        out.writeInt(buffered);
+        for (int i = 0; i < buffered; i++) {
+            out.writeDouble(buffer[i]);
+        }
+    }
+
+    void readState(final DataInput in) throws IOException {
+        StateIO.checkEmpty(count);
+        final boolean approximate = in.readBoolean();
+        final boolean fromRight = in.readBoolean();
+        final double min = in.readDouble();
+        final double max = in.readDouble();
+        final int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Negative number of centroids: " + size);
+        }
+        final double[] means = new double[size];
+        final long[] weights = new long[size];
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            means[i] = in.readDouble();
+            weights[i] = in.readLong();
+            if (weights[i] <= 0 || i > 0 && Double.compare(means[i - 1], means[i]) > 0) {
+                throw new IOException("Invalid centroid " + i);
+            }
+            count += weights[i];
+        }
+        final int buffered = in.readInt();
+        if (buffered < 0 || buffered > BUFFER_SIZE) {
+            throw new IOException("Invalid number of buffered values: " + buffered);
+        }
+        final double[] buffer = new double[Math.max(buffered, INITIAL_SIZE)];
+        for (int i = 0; i < buffered; i++) {
+            buffer[i] = in.readDouble();
+        }
+        this.means = means;
+        this.weights = weights;
+        this.scratchMeans = new double[size];
+        this.scratchWeights = new long[size];
+        this.size = size;
+        this.buffer = buffer;
+        this.buffered = buffered;
+        this.count = count + buffered;
+        this.approximate = approximate;
+        this.fromRight = fromRight;
+        this.min = min;
+        this.max = max;
+    }
+}
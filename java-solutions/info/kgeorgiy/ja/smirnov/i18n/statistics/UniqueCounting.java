@@ -0,0 +1,28 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+/**
+ * Way of counting unique values in statistics.
+ */
+public enum UniqueCounting {
+    /**
+     * Every distinct value is kept until the end, count is exact.
+     */
+    EXACT,
+    /**
+     * HyperLogLog sketch of fixed size (16 KiB per statistics) is kept instead of values.
+     * Standard error of count is about 0.8%, so in 99% of cases it is less than 2.5%.
+     * Small counts (less than about 40 000) are estimated more precisely, with error of few values.
+     */
+    APPROXIMATE,
+    /**
+     * 128-bit fingerprints of strings are kept instead of strings, numbers and dates are kept as in {@link #EXACT}.
+     * Fingerprints over memory budget are spilled to sorted temporary files, so count is exact
+     * for inputs larger than the heap, unless fingerprints collide, that is practically impossible.
+     */
+    FINGERPRINT;
+
+    /**
+     * System property with memory budget of {@link #FINGERPRINT} in bytes per statistics, 16 MiB by default.
+     */
+    public static final String MEMORY_BUDGET_PROPERTY = "info.kgeorgiy.ja.smirnov.i18n.uniques.memory";
+}
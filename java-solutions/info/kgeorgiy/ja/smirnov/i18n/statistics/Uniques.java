@@ -0,0 +1,51 @@
+package info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.ToLongFunction;
+
+interface Uniques<T> {
+    void add(T t);
+
+    long size();
+
+    /**
+     * Adds all values of other uniques of the same kind.
+     */
+    void merge(Uniques<T> other);
+
+    void writeState(DataOutput out, ValueWriter<? super T> writer) throws IOException;
+
+    /**
+     * Reads state written by {@link #writeState} into empty uniques.
+     */
+    void readState(DataInput in, ValueReader<? extends T> reader) throws IOException;
+
+    static <T> Uniques<T> create(
+            final UniqueCounting counting,
+            final ToLongFunction<? super T> hash,
+            final FingerprintUniques.Fingerprint<? super T> fingerprint
+    ) {
+        return switch (counting) {
+            case EXACT -> new ExactUniques<>();
+            case APPROXIMATE -> new ApproximateUniques<>(hash);
+            case FINGERPRINT -> new FingerprintUniques<>(fingerprint);
+        };
+    }
+
+    static IllegalArgumentException incompatible(final Object uniques, final Object other) {
+        return new IllegalArgumentException("Can't merge " + other.getClass().getSimpleName()
+                + " into " + uniques.getClass().getSimpleName());
+    }
+
+    @FunctionalInterface
+    interface ValueWriter<T> {
+        void write(DataOutput out, T value) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface ValueReader<T> {
+        T read(DataInput in) throws IOException;
+    }
+}
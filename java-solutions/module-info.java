@@ -1,5 +1,9 @@
 module info.kgeorgiy.ja.smirnov {
     requires junit;
+    requires jdk.jfr;
 
-    exports info.kgeorgiy.ja.smirnov.i18n to junit;
+    exports info.kgeorgiy.ja.smirnov.i18n;
+    exports info.kgeorgiy.ja.smirnov.i18n.statistics;
+
+    uses info.kgeorgiy.ja.smirnov.i18n.StatisticsProvider;
 }
\ No newline at end of file